@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+
+/**
+ * Flight Recorder events of the timers.
+ * This class lives in the jfr source set that is only compiled if the
+ * build JDK provides the jdk.jfr API (Java 8u262 or newer). It is loaded
+ * by name from TimerInstrumentation if the instrumentation is enabled and
+ * the JVM provides the API, so the timers still build and run without
+ * the Flight Recorder.
+ */
+final class TimerJfrEvents implements TimerInstrumentation.FlightRecorder {
+
+    // ******************** Constructors **************************************
+    TimerJfrEvents() {}
+
+
+    // ******************** Methods *******************************************
+    @Override public void transition(final TimerEvent EVENT) {
+        final TransitionEvent JFR_EVENT = new TransitionEvent();
+        if (!JFR_EVENT.isEnabled()) { return; }
+        JFR_EVENT.timer     = System.identityHashCode(EVENT.getModel());
+        JFR_EVENT.type      = EVENT.getType().name();
+        JFR_EVENT.elapsed   = EVENT.getElapsedNanos();
+        JFR_EVENT.remaining = EVENT.getRemainingNanos();
+        JFR_EVENT.drift     = EVENT.getDriftNanos();
+        JFR_EVENT.commit();
+    }
+
+    @Override public void listener(final TimerEvent EVENT, final TimerEventListener LISTENER) {
+        final ListenerEvent JFR_EVENT = new ListenerEvent();
+        JFR_EVENT.begin();
+        try {
+            LISTENER.onTimerEvent(EVENT);
+        } finally {
+            JFR_EVENT.end();
+            if (JFR_EVENT.shouldCommit()) {
+                JFR_EVENT.listener = TimerStatistics.listenerName(LISTENER);
+                JFR_EVENT.type     = EVENT.getType().name();
+                JFR_EVENT.commit();
+            }
+        }
+    }
+
+    @Override public void render(final String OPERATION, final Runnable PASS) {
+        final RenderEvent JFR_EVENT = new RenderEvent();
+        JFR_EVENT.begin();
+        try {
+            PASS.run();
+        } finally {
+            JFR_EVENT.end();
+            if (JFR_EVENT.shouldCommit()) {
+                JFR_EVENT.operation = OPERATION;
+                JFR_EVENT.commit();
+            }
+        }
+    }
+
+
+    // ******************** Inner Classes *************************************
+    @Name("eu.hansolo.fx.timer.Transition")
+    @Label("Timer Event")
+    @Category({ "JavaFX", "Timer" })
+    @Description("Event that has been fired by a timer")
+    static final class TransitionEvent extends Event {
+        @Label("Timer") int timer;
+        @Label("Type") String type;
+        @Label("Elapsed") @Timespan long elapsed;
+        @Label("Remaining") @Timespan long remaining;
+        @Label("Drift") @Timespan long drift;
+    }
+
+    @Name("eu.hansolo.fx.timer.Listener")
+    @Label("Timer Listener")
+    @Category({ "JavaFX", "Timer" })
+    @Description("Time a listener took to handle a timer event")
+    static final class ListenerEvent extends Event {
+        @Label("Listener") String listener;
+        @Label("Type") String type;
+    }
+
+    @Name("eu.hansolo.fx.timer.Render")
+    @Label("Timer Render")
+    @Category({ "JavaFX", "Timer" })
+    @Description("Resize or redraw pass of a Timer control")
+    static final class RenderEvent extends Event {
+        @Label("Operation") String operation;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.TimerEvent.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Dispatch of one event to a varying number of listeners.
+ * Runs on the headless TimerModel, the Timer control delegates to it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FireTimerEventBenchmark {
+    @Param({ "0", "1", "10", "100", "1000" })
+    private int        listeners;
+    private TimerModel model;
+    private TimerEvent second;
+    private TimerEvent finished;
+
+
+    @Setup public void setup() {
+        model    = new TimerModel();
+        second   = new TimerEvent(model, Type.SECOND);
+        finished = new TimerEvent(model, Type.FINISHED);
+        // Half of the listeners only subscribe to FINISHED
+        for (int i = 0 ; i < listeners ; i++) {
+            if (i % 2 == 0) {
+                model.addTimerEventListener(new CountingListener());
+            } else {
+                model.addTimerEventListener(EnumSet.of(Type.FINISHED), new CountingListener());
+            }
+        }
+    }
+
+    @Benchmark public void fireSecond() { model.fireTimerEvent(second); }
+
+    @Benchmark public void fireFinished() { model.fireTimerEvent(finished); }
+
+
+    // ******************** Inner Classes *************************************
+    private static final class CountingListener implements TimerEventListener {
+        private long count;
+
+        @Override public void onTimerEvent(final TimerEvent EVENT) { count++; }
+    }
+}
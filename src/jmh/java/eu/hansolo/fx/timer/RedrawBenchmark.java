@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The resize() and redraw() paths of the Timer control.
+ * Each operation changes the size or the color and runs the layout pass
+ * that applies the change, batched on the FX application thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedrawBenchmark {
+    private static final int      BATCH = 1000;
+    private              Timer    timer;
+    private              Runnable resizes;
+    private              Runnable recolors;
+
+
+    @Setup public void setup() {
+        FxToolkit.start();
+        FxToolkit.runAndWait(() -> {
+            timer = new Timer();
+            timer.resize(38, 38);
+            timer.layout();
+        });
+        resizes = () -> {
+            for (int i = 0 ; i < BATCH ; i++) {
+                final double SIZE = i % 2 == 0 ? 38 : 76;
+                timer.resize(SIZE, SIZE);
+                timer.layout();
+            }
+        };
+        recolors = () -> {
+            for (int i = 0 ; i < BATCH ; i++) {
+                timer.setColor(i % 2 == 0 ? Color.RED : Timer.DEFAULT_COLOR);
+                timer.layout();
+            }
+        };
+    }
+
+    @Benchmark @OperationsPerInvocation(BATCH) public void resize() { FxToolkit.runAndWait(resizes); }
+
+    @Benchmark @OperationsPerInvocation(BATCH) public void redraw() { FxToolkit.runAndWait(recolors); }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * start()/stop() cycles of the headless model and of the Timer control.
+ * The control is driven on the FX application thread in batches so that
+ * the hand over to the FX thread doesn't dominate the result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StartStopBenchmark {
+    private static final int        BATCH = 1000;
+    private              TimerModel model;
+    private              Timer      timer;
+    private              Runnable   cycles;
+
+
+    @Setup public void setup() {
+        FxToolkit.start();
+        model = new TimerModel();
+        FxToolkit.runAndWait(() -> timer = new Timer());
+        cycles = () -> {
+            for (int i = 0 ; i < BATCH ; i++) {
+                timer.start();
+                timer.stop();
+            }
+        };
+    }
+
+    @TearDown public void tearDown() { FxToolkit.runAndWait(timer::reset); }
+
+    @Benchmark public void modelStartStop() {
+        model.start();
+        model.stop();
+    }
+
+    @Benchmark @OperationsPerInvocation(BATCH) public void timerStartStop() { FxToolkit.runAndWait(cycles); }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import eu.hansolo.fx.timer.TimerEvent.Type;
+import javafx.animation.AnimationTimer;
+import javafx.scene.Scene;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.paint.Color;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+
+/**
+ * Load harness that shows thousands of timers in one scene and measures
+ * how the FX application thread copes with them. The timers are built
+ * with the TimerBuilder and get random sizes, durations and listener
+ * counts, a random share of them changes its state on every pulse.
+ * Measured are the interval between the timestamps of consecutive
+ * pulses, the dropped frames that follow from it, the allocation rate of the FX application thread, the GC activity and the
+ * lateness of the SECOND and FINISHED deliveries. The results are
+ * printed and written as JSON report so that builds can be compared.
+ * Runs headless with Monocle, e.g. gradlew stress -Ptimers=5000
+ * Arguments are key=value pairs: timers (2000), warmup (10 s),
+ * seconds (30 s), changes (state changes per second, 200), seed (42),
+ * frameRate (60) and report (build/reports/stress/timer-stress.json).
+ */
+public final class TimerStress {
+    private static final Color[]                  COLORS      = { Timer.DEFAULT_COLOR, Color.web("0xD15B47"), Color.web("0x5DAE5B"), Color.web("0xE1A33C") };
+    private static final int                      SIGNIFICANT = 3;
+    private        final int                      timerCount;
+    private        final int                      warmupSeconds;
+    private        final int                      seconds;
+    private        final int                      changesPerSecond;
+    private        final long                     seed;
+    private        final double                   frameRate;
+    private        final long                     frameNanos;
+    private        final Path                     report;
+    private        final Random                   random;
+    private        final List<Timer>              timers;
+    private        final Histogram                pulseInterval;
+    private        final Histogram                secondLateness;
+    private        final Histogram                finishedLateness;
+    private        final AnimationTimer           driver;
+    private              Stage                    stage;
+    private              boolean                  measuring;
+    private              long                     lastPulse;
+    private              double                   pendingChanges;
+    private              long                     pulses;
+    private              long                     droppedFrames;
+    private              long                     stateChanges;
+    private              long                     fxThreadId;
+    private              long                     startNanos;
+    private              long                     startAllocated;
+    private              long                     startGcCount;
+    private              long                     startGcMillis;
+    private              double                   allocationRate;
+    private              long                     gcCount;
+    private              long                     gcMillis;
+    private              long                     heapUsed;
+
+
+    // ******************** Constructors **************************************
+    private TimerStress(final Map<String, String> OPTIONS) {
+        timerCount       = Integer.parseInt(OPTIONS.getOrDefault("timers", "2000"));
+        warmupSeconds    = Integer.parseInt(OPTIONS.getOrDefault("warmup", "10"));
+        seconds          = Integer.parseInt(OPTIONS.getOrDefault("seconds", "30"));
+        changesPerSecond = Integer.parseInt(OPTIONS.getOrDefault("changes", "200"));
+        seed             = Long.parseLong(OPTIONS.getOrDefault("seed", "42"));
+        frameRate        = Double.parseDouble(OPTIONS.getOrDefault("frameRate", "60"));
+        frameNanos       = (long) (TimerModel.NANOS_PER_SECOND / frameRate);
+        report           = Paths.get(OPTIONS.getOrDefault("report", "build/reports/stress/timer-stress.json"));
+        random           = new Random(seed);
+        timers           = new ArrayList<>(timerCount);
+        pulseInterval    = new Histogram(SIGNIFICANT);
+        secondLateness   = new Histogram(SIGNIFICANT);
+        finishedLateness = new Histogram(SIGNIFICANT);
+        driver           = new AnimationTimer() {
+            @Override public void handle(final long NOW) { onPulse(NOW); }
+        };
+    }
+
+
+    // ******************** Methods *******************************************
+    public static void main(final String[] ARGS) throws Exception {
+        final Map<String, String> OPTIONS = new HashMap<>();
+        for (String arg : ARGS) {
+            final int INDEX = arg.indexOf('=');
+            if (INDEX < 1) { throw new IllegalArgumentException("Arguments must be key=value pairs: " + arg); }
+            OPTIONS.put(arg.substring(0, INDEX), arg.substring(INDEX + 1));
+        }
+        new TimerStress(OPTIONS).run();
+        // The FX toolkit keeps the JVM alive otherwise
+        System.exit(0);
+    }
+
+    private void run() throws InterruptedException, IOException {
+        FxToolkit.start();
+        FxToolkit.runAndWait(this::setup);
+        Thread.sleep(warmupSeconds * 1000L);
+        FxToolkit.runAndWait(this::startMeasuring);
+        Thread.sleep(seconds * 1000L);
+        FxToolkit.runAndWait(this::stopMeasuring);
+        FxToolkit.runAndWait(() -> {
+            driver.stop();
+            stage.close();
+        });
+        final String JSON = toJson();
+        if (null != report.getParent()) { Files.createDirectories(report.getParent()); }
+        Files.write(report, JSON.getBytes(StandardCharsets.UTF_8));
+        System.out.println(JSON);
+        System.out.println("Report written to " + report.toAbsolutePath());
+    }
+
+    private void setup() {
+        final FlowPane PANE = new FlowPane();
+        for (int i = 0 ; i < timerCount ; i++) {
+            final double SIZE  = 19 + random.nextInt(46);
+            final Timer  TIMER = TimerBuilder.create()
+                                             .prefSize(SIZE, SIZE)
+                                             .color(COLORS[random.nextInt(COLORS.length)])
+                                             .duration(randomDuration())
+                                             .build();
+            final int LISTENERS = random.nextInt(4);
+            for (int j = 0 ; j < LISTENERS ; j++) {
+                // The lambda captures this, so every listener is a new instance with its own subscription
+                TIMER.addTimerEventListener(EnumSet.of(Type.SECOND, Type.FINISHED), EVENT -> onTimerEvent(EVENT));
+            }
+            if (random.nextBoolean()) { TIMER.start(); }
+            timers.add(TIMER);
+            PANE.getChildren().add(TIMER);
+        }
+        stage = new Stage();
+        stage.setScene(new Scene(PANE, 1280, 800));
+        stage.show();
+        fxThreadId = Thread.currentThread().getId();
+        driver.start();
+    }
+
+    // The timestamp is the same for all animations of a pulse and is taken when the pulse starts
+    private void onPulse(final long NOW) {
+        if (measuring) {
+            final long INTERVAL = NOW - lastPulse;
+            pulses++;
+            pulseInterval.recordValue(INTERVAL);
+            if (INTERVAL > frameNanos + (frameNanos >> 1)) { droppedFrames += Math.round((double) INTERVAL / frameNanos) - 1; }
+        }
+        lastPulse = NOW;
+
+        pendingChanges += changesPerSecond / frameRate;
+        while (pendingChanges >= 1) {
+            pendingChanges--;
+            changeState(timers.get(random.nextInt(timers.size())));
+        }
+    }
+
+    private void changeState(final Timer TIMER) {
+        if (measuring) { stateChanges++; }
+        switch(random.nextInt(8)) {
+            case 0 : TIMER.stop(); break;
+            case 1 : TIMER.waiting(); break;
+            case 2 : TIMER.reset(); break;
+            case 3 : if (State.STOPPED == TIMER.getState()) { TIMER.startFromCurrent(); } break;
+            case 4 : TIMER.setDuration(randomDuration()); break;
+            default: if (State.RUNNING != TIMER.getState()) { TIMER.start(); } break;
+        }
+    }
+
+    private void onTimerEvent(final TimerEvent EVENT) {
+        if (!measuring) { return; }
+        // Time between the boundary of the event and this delivery, including the listeners before this one
+        final long LATENESS = Math.max(0, System.nanoTime() - EVENT.getTimestamp() + EVENT.getDriftNanos());
+        (Type.SECOND == EVENT.getType() ? secondLateness : finishedLateness).recordValue(LATENESS);
+    }
+
+    private Duration randomDuration() { return Duration.seconds(1 + random.nextInt(30)); }
+
+    private void startMeasuring() {
+        pulseInterval.reset();
+        secondLateness.reset();
+        finishedLateness.reset();
+        pulses         = 0;
+        droppedFrames  = 0;
+        stateChanges   = 0;
+        startAllocated = allocatedBytes();
+        startGcCount   = gcCount();
+        startGcMillis  = gcMillis();
+        startNanos     = System.nanoTime();
+        measuring      = true;
+    }
+
+    private void stopMeasuring() {
+        measuring = false;
+        final double SECONDS = (System.nanoTime() - startNanos) / (double) TimerModel.NANOS_PER_SECOND;
+        final long   BYTES   = allocatedBytes();
+        allocationRate = BYTES < 0 || startAllocated < 0 ? -1 : (BYTES - startAllocated) / SECONDS;
+        gcCount        = gcCount() - startGcCount;
+        gcMillis       = gcMillis() - startGcMillis;
+        heapUsed       = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    // Bytes allocated by the FX application thread or -1 if the JVM doesn't support it
+    private long allocatedBytes() {
+        final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+        if (!(THREADS instanceof com.sun.management.ThreadMXBean)) { return -1; }
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(fxThreadId);
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) { count += Math.max(0, gc.getCollectionCount()); }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) { millis += Math.max(0, gc.getCollectionTime()); }
+        return millis;
+    }
+
+    private String toJson() {
+        final StringBuilder JSON = new StringBuilder(1024);
+        JSON.append("{\n");
+        JSON.append("  \"timers\": ").append(timerCount).append(",\n");
+        JSON.append("  \"warmupSeconds\": ").append(warmupSeconds).append(",\n");
+        JSON.append("  \"seconds\": ").append(seconds).append(",\n");
+        JSON.append("  \"changesPerSecond\": ").append(changesPerSecond).append(",\n");
+        JSON.append("  \"seed\": ").append(seed).append(",\n");
+        JSON.append("  \"javaVersion\": \"").append(System.getProperty("java.version")).append("\",\n");
+        JSON.append("  \"javafxVersion\": \"").append(System.getProperty("javafx.runtime.version", "unknown")).append("\",\n");
+        JSON.append("  \"pulses\": ").append(pulses).append(",\n");
+        JSON.append("  \"droppedFrames\": ").append(droppedFrames).append(",\n");
+        JSON.append("  \"stateChanges\": ").append(stateChanges).append(",\n");
+        JSON.append("  \"fxAllocatedBytesPerSecond\": ").append(format(allocationRate)).append(",\n");
+        JSON.append("  \"gcCount\": ").append(gcCount).append(",\n");
+        JSON.append("  \"gcMillis\": ").append(gcMillis).append(",\n");
+        JSON.append("  \"heapUsedBytes\": ").append(heapUsed).append(",\n");
+        appendHistogram(JSON, "pulseIntervalMicros", pulseInterval).append(",\n");
+        appendHistogram(JSON, "secondLatenessMicros", secondLateness).append(",\n");
+        appendHistogram(JSON, "finishedLatenessMicros", finishedLateness).append("\n");
+        JSON.append("}\n");
+        return JSON.toString();
+    }
+
+    private static StringBuilder appendHistogram(final StringBuilder JSON, final String NAME, final Histogram HISTOGRAM) {
+        JSON.append("  \"").append(NAME).append("\": { ")
+            .append("\"count\": ").append(HISTOGRAM.getTotalCount())
+            .append(", \"mean\": ").append(format(HISTOGRAM.getMean() / 1000))
+            .append(", \"p50\": ").append(format(HISTOGRAM.getValueAtPercentile(50) / 1000.0))
+            .append(", \"p90\": ").append(format(HISTOGRAM.getValueAtPercentile(90) / 1000.0))
+            .append(", \"p99\": ").append(format(HISTOGRAM.getValueAtPercentile(99) / 1000.0))
+            .append(", \"p999\": ").append(format(HISTOGRAM.getValueAtPercentile(99.9) / 1000.0))
+            .append(", \"max\": ").append(format(HISTOGRAM.getMaxValue() / 1000.0))
+            .append(" }");
+        return JSON;
+    }
+
+    private static String format(final double VALUE) { return String.format(Locale.US, "%.1f", VALUE); }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.TimerEvent.Type;
+import javafx.application.Platform;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Wraps a TimerEventListener and delivers the events on the given Executor.
+ * Events are buffered in a bounded queue per listener and delivered in
+ * order, never more than one at a time. The thread that fires the events
+ * only enqueues them and never runs listener code. An exception of the
+ * listener is passed to the uncaught exception handler of the executing
+ * thread and the remaining events are still delivered.
+ * If the queue is full the OverflowPolicy decides what happens:
+ * BLOCK lets the firing thread wait for free space, except for the FX
+ * application thread which never waits and drops the oldest event
+ * instead (a Timer control rejects BLOCK for that reason), DROP_OLDEST removes
+ * the oldest queued event and COALESCE_SECOND replaces a queued SECOND
+ * event of the same timer by a new SECOND event and drops the oldest
+ * event if that is not possible.
+ */
+public class AsyncTimerEventListener implements TimerEventListener {
+    public enum OverflowPolicy { BLOCK, DROP_OLDEST, COALESCE_SECOND }
+    public  static final int                    DEFAULT_CAPACITY = 256;
+    private        final TimerEventListener     delegate;
+    private        final Executor               executor;
+    private        final int                    capacity;
+    private        final OverflowPolicy         policy;
+    private        final ArrayDeque<TimerEvent> queue;
+    private        final ReentrantLock          lock;
+    private        final Condition              notFull;
+    private        final AtomicLong             dropped;
+    private        final AtomicLong             coalesced;
+    private              boolean                scheduled;
+
+
+    // ******************** Constructors **************************************
+    public AsyncTimerEventListener(final TimerEventListener LISTENER, final Executor EXECUTOR) {
+        this(LISTENER, EXECUTOR, DEFAULT_CAPACITY, OverflowPolicy.DROP_OLDEST);
+    }
+    public AsyncTimerEventListener(final TimerEventListener LISTENER, final Executor EXECUTOR, final int CAPACITY, final OverflowPolicy POLICY) {
+        if (null == LISTENER || null == EXECUTOR || null == POLICY) { throw new IllegalArgumentException("Listener, executor and policy cannot be null"); }
+        if (CAPACITY < 1) { throw new IllegalArgumentException("Capacity must be at least 1"); }
+        delegate  = LISTENER;
+        executor  = EXECUTOR;
+        capacity  = CAPACITY;
+        policy    = POLICY;
+        queue     = new ArrayDeque<>(Math.min(CAPACITY, DEFAULT_CAPACITY));
+        lock      = new ReentrantLock();
+        notFull   = lock.newCondition();
+        dropped   = new AtomicLong(0);
+        coalesced = new AtomicLong(0);
+        scheduled = false;
+    }
+
+
+    // ******************** Methods *******************************************
+    public TimerEventListener getDelegate() { return delegate; }
+
+    public OverflowPolicy getPolicy() { return policy; }
+
+    public int getCapacity() { return capacity; }
+
+    /**
+     * @return the number of events that have been dropped because the queue was full
+     */
+    public long getDroppedCount() { return dropped.get(); }
+
+    /**
+     * @return the number of SECOND events that replaced a queued SECOND event because the queue was full
+     */
+    public long getCoalescedCount() { return coalesced.get(); }
+
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override public void onTimerEvent(final TimerEvent EVENT) {
+        boolean submit;
+        lock.lock();
+        try {
+            if (queue.size() >= capacity) {
+                if (OverflowPolicy.BLOCK == policy && !isFxApplicationThread()) {
+                    while (queue.size() >= capacity) { notFull.awaitUninterruptibly(); }
+                } else if (OverflowPolicy.COALESCE_SECOND == policy && Type.SECOND == EVENT.getType() && replaceSecond(EVENT)) {
+                    coalesced.incrementAndGet();
+                    return;
+                } else {
+                    queue.pollFirst();
+                    dropped.incrementAndGet();
+                }
+            }
+            // Events fired with fireTimerEvent() might be reused by their sender and are copied before they are queued
+            queue.offerLast(EVENT.copy());
+            submit    = !scheduled;
+            scheduled = true;
+        } finally {
+            lock.unlock();
+        }
+        if (submit) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                lock.lock();
+                try {
+                    scheduled = false;
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        boolean drained = false;
+        try {
+            while (true) {
+                final TimerEvent EVENT;
+                lock.lock();
+                try {
+                    EVENT = queue.pollFirst();
+                    if (null == EVENT) {
+                        scheduled = false;
+                        drained   = true;
+                        return;
+                    }
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    delegate.onTimerEvent(EVENT);
+                } catch (RuntimeException e) {
+                    final Thread THREAD = Thread.currentThread();
+                    THREAD.getUncaughtExceptionHandler().uncaughtException(THREAD, e);
+                }
+            }
+        } finally {
+            // The next event schedules a new drain if this one has been aborted
+            if (!drained) {
+                lock.lock();
+                try {
+                    scheduled = false;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    // Must be called with the lock held
+    private boolean replaceSecond(final TimerEvent EVENT) {
+        final Iterator<TimerEvent> ITERATOR = queue.descendingIterator();
+        while (ITERATOR.hasNext()) {
+            final TimerEvent QUEUED = ITERATOR.next();
+            if (QUEUED.getModel() != EVENT.getModel()) { continue; }
+            // Only coalesce with a SECOND event that has not been followed by another event of the same timer
+            if (Type.SECOND != QUEUED.getType()) { return false; }
+            ITERATOR.remove();
+            queue.offerLast(EVENT.copy());
+            return true;
+        }
+        return false;
+    }
+
+    // Headless models might run without JavaFX on the classpath, then there is no FX application thread
+    private static boolean isFxApplicationThread() {
+        try {
+            return Platform.isFxApplicationThread();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
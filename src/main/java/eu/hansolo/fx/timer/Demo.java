@@ -53,7 +53,7 @@ public class Demo extends Application {
                 case STOPPED  : timer.setPlayButtonVisible(true);break;
                 case FINISHED : label.setText("0 s"); break;
                 case WAITING  : break;
-                case SECOND   : label.setText(String.format(Locale.US, "%.1f s", timer.getCurrentTime().toSeconds()));
+                case SECOND   : label.setText(String.format(Locale.US, "%.1f s", event.getElapsedNanos() / 1_000_000_000.0));
             }
             System.out.println(event.getType());
         });
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Virtual TimerClock that only moves when it is advanced. Advancing the
+ * clock doesn't fire anything, the models that use the clock fire their
+ * due events in the order of their boundaries with the next update().
+ * A waiting model has no deadline, so jumping from event to event has
+ * to stop when getNextDeadlineNanos() returns Long.MAX_VALUE.
+ * <pre>
+ * ManualTimerClock clock = TimerClock.manual();
+ * model.setClock(clock);
+ * model.start();
+ * long deadline;
+ * while (model.update() &amp;&amp; Long.MAX_VALUE != (deadline = model.getNextDeadlineNanos())) { clock.set(deadline); }
+ * </pre>
+ */
+public final class ManualTimerClock implements TimerClock {
+    private final AtomicLong nanos;
+
+
+    // ******************** Constructors **************************************
+    public ManualTimerClock() {
+        this(0);
+    }
+    public ManualTimerClock(final long START_NANOS) {
+        nanos = new AtomicLong(START_NANOS);
+    }
+
+
+    // ******************** Methods *******************************************
+    @Override public long nanoTime() { return nanos.get(); }
+
+    /**
+     * @return the new time of the clock in nanoseconds
+     */
+    public long advance(final long AMOUNT, final TimeUnit UNIT) { return advance(UNIT.toNanos(AMOUNT)); }
+    public long advance(final long NANOS) {
+        if (NANOS < 0) { throw new IllegalArgumentException("Time cannot go backwards"); }
+        return nanos.addAndGet(NANOS);
+    }
+
+    /**
+     * Moves the clock to the given time, a time in the past is ignored
+     * because the clock is monotonic. Long.MAX_VALUE is ignored as well,
+     * it stands for "no deadline" in the models.
+     */
+    public void set(final long NANOS) {
+        if (Long.MAX_VALUE == NANOS) { return; }
+        long current = nanos.get();
+        while (NANOS > current && !nanos.compareAndSet(current, NANOS)) { current = nanos.get(); }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Dedicated daemon thread that fires the deadline events of timers in
+ * precision mode at their absolute System.nanoTime() deadline instead of
+ * with the next FX pulse. The thread parks until shortly before the
+ * deadline and spins for the rest of the time to hit it within
+ * microseconds. The lateness of every delivery is recorded.
+ * Listeners of models in precision mode are called on this thread, an
+ * exception of a listener is passed to the uncaught exception handler of
+ * the thread and doesn't stop the delivery of other deadlines.
+ * Every model has at most one pending deadline, rescheduling a model
+ * cancels its previous deadline.
+ */
+public final class PrecisionScheduler {
+    private static final PrecisionScheduler    INSTANCE   = new PrecisionScheduler();
+    private static final long                  SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+    private        final PriorityQueue<Item>   queue;
+    private        final Map<TimerModel, Item> items;
+    private        final ReentrantLock         lock;
+    private        final Condition             changed;
+    private        final AtomicLong            deliveries;
+    private        final AtomicLong            totalLateness;
+    private        final AtomicLong            maxLateness;
+    private volatile     long                  lastLateness;
+    private              int                   cancelled;
+    private              Thread                thread;
+
+
+    // ******************** Constructors **************************************
+    private PrecisionScheduler() {
+        queue         = new PriorityQueue<>();
+        items         = new IdentityHashMap<>();
+        lock          = new ReentrantLock();
+        changed       = lock.newCondition();
+        deliveries    = new AtomicLong(0);
+        totalLateness = new AtomicLong(0);
+        maxLateness   = new AtomicLong(0);
+    }
+
+
+    // ******************** Methods *******************************************
+    public static PrecisionScheduler getInstance() { return INSTANCE; }
+
+    /**
+     * @return the number of deadlines that have been delivered
+     */
+    public long getDeliveryCount() { return deliveries.get(); }
+
+    /**
+     * @return the nanoseconds the last delivery was late
+     */
+    public long getLastLatenessNanos() { return lastLateness; }
+
+    /**
+     * @return the maximum nanoseconds a delivery was late
+     */
+    public long getMaxLatenessNanos() { return maxLateness.get(); }
+
+    public long getAverageLatenessNanos() {
+        final long COUNT = deliveries.get();
+        return 0 == COUNT ? 0 : totalLateness.get() / COUNT;
+    }
+
+    public void resetStatistics() {
+        deliveries.set(0);
+        totalLateness.set(0);
+        maxLateness.set(0);
+        lastLateness = 0;
+    }
+
+    void schedule(final TimerModel MODEL, final long DEADLINE) {
+        lock.lock();
+        try {
+            if (null == thread) {
+                thread = new Thread(this::run, "timer-precision-scheduler");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MAX_PRIORITY);
+                thread.start();
+            }
+            cancel(items.remove(MODEL));
+            final Item ITEM = new Item(MODEL, DEADLINE);
+            items.put(MODEL, ITEM);
+            queue.add(ITEM);
+            if (queue.peek() == ITEM) { changed.signal(); }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void cancel(final TimerModel MODEL) {
+        lock.lock();
+        try {
+            cancel(items.remove(MODEL));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Number of queued deadlines including cancelled ones that have not been dropped yet
+    int getQueueSize() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Releases the model of the item, the item is dropped when it's polled or when cancelled items make up half of the queue
+    private void cancel(final Item ITEM) {
+        if (null == ITEM) { return; }
+        ITEM.model = null;
+        cancelled++;
+        if (cancelled > queue.size() / 2) {
+            queue.removeIf(item -> null == item.model);
+            cancelled = 0;
+        }
+    }
+
+    private void run() {
+        while (true) {
+            final Item       NEXT;
+            final TimerModel MODEL;
+            lock.lock();
+            try {
+                final Item HEAD = queue.peek();
+                if (null == HEAD) {
+                    changed.awaitUninterruptibly();
+                    continue;
+                }
+                final long WAIT = HEAD.deadline - System.nanoTime();
+                if (WAIT > SPIN_NANOS) {
+                    try {
+                        changed.awaitNanos(WAIT - SPIN_NANOS);
+                    } catch (InterruptedException e) {
+                        // Just check the queue again
+                    }
+                    continue;
+                }
+                NEXT  = queue.poll();
+                MODEL = NEXT.model;
+                if (null == MODEL) {
+                    cancelled--;
+                    continue;
+                }
+                items.remove(MODEL);
+            } finally {
+                lock.unlock();
+            }
+            // Spin for the last few microseconds
+            while (System.nanoTime() - NEXT.deadline < 0) { Thread.yield(); }
+            final long NOW = System.nanoTime();
+            try {
+                // Outdated deadlines of models that have been changed in the meantime will be skipped by the model
+                if (MODEL.onPreciseDeadline(NEXT.deadline, NOW)) { record(NOW - NEXT.deadline); }
+            } catch (Throwable t) {
+                final Thread THREAD = Thread.currentThread();
+                THREAD.getUncaughtExceptionHandler().uncaughtException(THREAD, t);
+            }
+        }
+    }
+
+    private void record(final long LATENESS) {
+        lastLateness = LATENESS;
+        deliveries.incrementAndGet();
+        totalLateness.addAndGet(LATENESS);
+        long max = maxLateness.get();
+        while (LATENESS > max && !maxLateness.compareAndSet(max, LATENESS)) { max = maxLateness.get(); }
+    }
+
+
+    // ******************** Inner Classes *************************************
+    private static final class Item implements Comparable<Item> {
+        private       TimerModel model;
+        private final long       deadline;
+
+
+        Item(final TimerModel MODEL, final long DEADLINE) {
+            model    = MODEL;
+            deadline = DEADLINE;
+        }
+
+        @Override public int compareTo(final Item OTHER) { return Long.compare(deadline - OTHER.deadline, 0); }
+    }
+}
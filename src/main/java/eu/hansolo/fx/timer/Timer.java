@@ -16,11 +16,8 @@
 
 package eu.hansolo.fx.timer;
 
-import eu.hansolo.fx.timer.TimerEvent.Type;
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.KeyValue;
-import javafx.animation.Timeline;
+import eu.hansolo.fx.timer.TimerModel.Precision;
+import javafx.application.Platform;
 import javafx.beans.DefaultProperty;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.BooleanPropertyBase;
@@ -30,9 +27,12 @@ import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ObjectPropertyBase;
 import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.ObservableList;
+import javafx.scene.CacheHint;
 import javafx.scene.Node;
 import javafx.geometry.Insets;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.Border;
@@ -56,8 +56,13 @@ import javafx.scene.shape.StrokeLineCap;
 import javafx.scene.shape.StrokeType;
 import javafx.util.Duration;
 
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 
 /**
@@ -68,6 +73,8 @@ import java.util.concurrent.CopyOnWriteArrayList;
 @DefaultProperty("children")
 public class Timer extends Region {
     public  enum         State { RUNNING, WAITING, STOPPED }
+    public  enum         UpdateMode { CONTINUOUS, PIXEL }
+    public  enum         RenderMode { SHAPES, SPRITES }
     public  static final Color                    DEFAULT_COLOR    = Color.web("0x407DBD");
     private static final double                   PREFERRED_WIDTH  = 19;
     private static final double                   PREFERRED_HEIGHT = 19;
@@ -75,24 +82,27 @@ public class Timer extends Region {
     private static final double                   MINIMUM_HEIGHT   = 19;
     private static final double                   MAXIMUM_WIDTH    = 1024;
     private static final double                   MAXIMUM_HEIGHT   = 1024;
-    private        final TimerEvent               STARTED          = new TimerEvent(Timer.this, Type.STARTED);
-    private        final TimerEvent               STOPPED          = new TimerEvent(Timer.this, Type.STOPPED);
-    private        final TimerEvent               CONTINUED        = new TimerEvent(Timer.this, Type.CONTINUED);
-    private        final TimerEvent               FINISHED         = new TimerEvent(Timer.this, Type.FINISHED);
-    private        final TimerEvent               RESET            = new TimerEvent(Timer.this, Type.RESET);
-    private        final TimerEvent               WAITING          = new TimerEvent(Timer.this, Type.WAITING);
-    private        final TimerEvent               SECOND           = new TimerEvent(Timer.this, Type.SECOND);
+    private static final String                   STYLESHEET       = Timer.class.getResource("timer.css").toExternalForm();
+    private static final AtomicIntegerFieldUpdater<Timer>             PENDING_COMMAND  = AtomicIntegerFieldUpdater.newUpdater(Timer.class, "pendingCommand");
+    private static final AtomicReferenceFieldUpdater<Timer, Duration> PENDING_DURATION = AtomicReferenceFieldUpdater.newUpdater(Timer.class, Duration.class, "pendingDuration");
+    private static final AtomicIntegerFieldUpdater<Timer>             QUEUED           = AtomicIntegerFieldUpdater.newUpdater(Timer.class, "queued");
+    private              TimerModel               model;
     private              double                   size;
-    private              double                   width;
-    private              double                   height;
-    private              double                   centerX;
-    private              double                   centerY;
+    private              Geometry                 geometry;
     private              Pane                     pane;
     private              Paint                    backgroundPaint;
     private              Paint                    borderPaint;
     private              double                   borderWidth;
+    private              Background               paneBackground;
+    private              Paint                    paneBackgroundPaint;
+    private              Border                   paneBorder;
+    private              Paint                    paneBorderPaint;
+    private              double                   paneBorderWidth;
+    private              boolean                  dirty;
     private              Arc                      ring;
     private              Arc                      progressBar;
+    private              ImageView                progressSprite;
+    private              TimerSpriteCache.Sprite  sprite;
     private              Rectangle                stopButton;
     private              Path                     playButton;
     private              MoveTo                   playButtonP1;
@@ -107,17 +117,34 @@ public class Timer extends Region {
     private              boolean                  _playButtonVisible;
     private              BooleanProperty          playButtonVisible;
     private              DoubleProperty           progress;
-    private              State                    state;
     private              Duration                 _duration;
     private              ObjectProperty<Duration> duration;
-    private              Duration                 currentDuration;
-    private              Timeline                 timeline;
-    private              List<TimerEventListener> listenerList = new CopyOnWriteArrayList<>();
+    private              Duration                 _tickInterval;
+    private              ObjectProperty<Duration> tickInterval;
+    private              UpdateMode               _updateMode;
+    private              ObjectProperty<UpdateMode> updateMode;
+    private              RenderMode               _renderMode;
+    private              ObjectProperty<RenderMode> renderMode;
+    private              double                   _maxUpdateRate;
+    private              DoubleProperty           maxUpdateRate;
+    private              double                   _waitingFrameRate;
+    private              DoubleProperty           waitingFrameRate;
+    private              long                     lastProgressUpdate;
+    private              State                    shownState;
+    private              boolean                  engineRegistered;
+    private              ReadOnlyObjectWrapper<Duration> currentTime;
+    private volatile     int                      pendingCommand;
+    private volatile     Duration                 pendingDuration;
+    private volatile     int                      queued;
 
 
     // ******************** Constructors **************************************
     public Timer() {
-        getStylesheets().add(Timer.class.getResource("timer.css").toExternalForm());
+        this(new TimerModel());
+    }
+    public Timer(final TimerModel MODEL) {
+        if (null == MODEL) { throw new IllegalArgumentException("Model cannot be null"); }
+        getStylesheets().add(STYLESHEET);
         backgroundPaint    = Color.TRANSPARENT;
         borderPaint        = Color.TRANSPARENT;
         borderWidth        = 0d;
@@ -125,22 +152,33 @@ public class Timer extends Region {
         _color             = DEFAULT_COLOR;
         _waitingColor      = DEFAULT_COLOR;
         _playButtonVisible = true;
-        state              = State.STOPPED;
-        _duration          = Duration.seconds(10);
-        currentDuration    = Duration.ZERO;
+        model              = MODEL;
+        model.addView(Timer.this);
+        _duration          = toDuration(model.getDurationNanos());
+        _tickInterval      = toDuration(model.getTickIntervalNanos());
+        _updateMode        = UpdateMode.CONTINUOUS;
+        _renderMode        = RenderMode.SHAPES;
+        shownState         = State.STOPPED;
+        _maxUpdateRate     = 0;
+        _waitingFrameRate  = 0;
+        engineRegistered   = false;
         progress           = new DoublePropertyBase(0) {
-            @Override protected void invalidated() { progressBar.setLength(-360.0 * get()); }
+            @Override protected void invalidated() {
+                if (null != sprite) {
+                    progressSprite.setViewport(sprite.getViewport(get()));
+                } else if (null != progressBar) {
+                    progressBar.setLength(-360.0 * get());
+                }
+            }
             @Override public Object getBean() { return Timer.this; }
             @Override public String getName() { return "progress"; }
         };
-        timeline           = new Timeline();
-        initGraphics();
-        registerListeners();
+        initSize();
     }
 
 
     // ******************** Initialization ************************************
-    private void initGraphics() {
+    private void initSize() {
         if (Double.compare(getPrefWidth(), 0.0) <= 0 || Double.compare(getPrefHeight(), 0.0) <= 0 || Double.compare(getWidth(), 0.0) <= 0 ||
             Double.compare(getHeight(), 0.0) <= 0) {
             if (getPrefWidth() > 0 && getPrefHeight() > 0) {
@@ -151,7 +189,14 @@ public class Timer extends Region {
         }
 
         getStyleClass().add("timer");
+    }
 
+    /**
+     * The nodes are created in the first layout pass which only happens
+     * once the control is part of a showing scene. The stop and play
+     * glyphs are created when they are shown for the first time.
+     */
+    private void initGraphics() {
         ring = new Arc();
         ring.setStartAngle(0);
         ring.setLength(360);
@@ -164,46 +209,48 @@ public class Timer extends Region {
         progressBar.setStroke(_color);
         progressBar.setStrokeLineCap(StrokeLineCap.BUTT);
         progressBar.setStartAngle(90);
-        progressBar.setLength(0);
+        progressBar.setLength(-360.0 * getProgress());
         progressBar.setMouseTransparent(true);
 
+        pane = new Pane(ring, progressBar);
+
+        // Sprites are rendered for the scale of the node
+        scaleXProperty().addListener(o -> { if (RenderMode.SPRITES == getRenderMode()) { redraw(); } });
+        scaleYProperty().addListener(o -> { if (RenderMode.SPRITES == getRenderMode()) { redraw(); } });
+
+        ring.setOnMousePressed(event -> {
+            switch(model.getState()) {
+                case RUNNING: stop();break;
+                case STOPPED: if (model.getElapsedNanos() > 0) { startFromCurrent(); } else { start(); } break;
+                case WAITING: stop();break;
+            }
+        });
+
+        getChildren().add(0, pane);
+        syncState(model.getState());
+        dirty = true;
+    }
+
+    private void initStopButton() {
         stopButton = new Rectangle();
         stopButton.setVisible(false);
         stopButton.setManaged(false);
         stopButton.setStroke(null);
         stopButton.setMouseTransparent(true);
+        pane.getChildren().add(stopButton);
+        if (null != geometry) { resizeStopButton(); }
+    }
 
+    private void initPlayButton() {
         playButtonP1 = new MoveTo();
         playButtonP2 = new LineTo();
         playButtonP3 = new LineTo();
         playButton = new Path(playButtonP1, playButtonP2, playButtonP3, new ClosePath());
         playButton.setStroke(null);
+        playButton.setFill(getColor());
         playButton.setMouseTransparent(true);
-
-        pane = new Pane(ring, progressBar, stopButton, playButton);
-        pane.setBackground(new Background(new BackgroundFill(backgroundPaint, CornerRadii.EMPTY, Insets.EMPTY)));
-        pane.setBorder(new Border(new BorderStroke(borderPaint, BorderStrokeStyle.SOLID, CornerRadii.EMPTY, new BorderWidths(borderWidth))));
-
-        getChildren().setAll(pane);
-    }
-
-    private void registerListeners() {
-        widthProperty().addListener(o -> resize());
-        heightProperty().addListener(o -> resize());
-        timeline.setOnFinished(event -> {
-            finished();
-            fireTimerEvent(FINISHED);
-        });
-        timeline.currentTimeProperty().addListener((o, ov, nv) -> {
-            if ((int) nv.toSeconds() > (int) ov.toSeconds()) { fireTimerEvent(SECOND); }
-        });
-        ring.setOnMousePressed(event -> {
-            switch(state) {
-                case RUNNING: stop();break;
-                case STOPPED: if (currentDuration.greaterThan(Duration.ZERO)) { startFromCurrent(); } else { start(); } break;
-                case WAITING: stop();break;
-            }
-        });
+        pane.getChildren().add(playButton);
+        if (null != geometry) { resizePlayButton(); }
     }
 
 
@@ -266,7 +313,6 @@ public class Timer extends Region {
             redraw();
         } else {
             waitingColor.set(COLOR);
-            redraw();
         }
     }
     public ObjectProperty<Color> waitingColorProperty() {
@@ -285,7 +331,7 @@ public class Timer extends Region {
     public void setPlayButtonVisible(final boolean VISIBLE) {
         if (null == playButtonVisible) {
             _playButtonVisible = VISIBLE;
-            if (VISIBLE) { enableNode(playButton); } else { disableNode(playButton); }
+            updatePlayButton();
         } else {
             playButtonVisible.set(VISIBLE);
         }
@@ -293,7 +339,7 @@ public class Timer extends Region {
     public BooleanProperty playButtonVisibleProperty() {
         if (null == playButtonVisible) {
             playButtonVisible = new BooleanPropertyBase(_playButtonVisible) {
-                @Override protected void invalidated() { if (get()) { enableNode(playButton); } else { disableNode(playButton); }}
+                @Override protected void invalidated() { updatePlayButton(); }
                 @Override public Object getBean() { return Timer.this; }
                 @Override public String getName() { return "playButtonVisible"; }
             };
@@ -305,10 +351,128 @@ public class Timer extends Region {
     public void setProgress(final double PROGRESS) { progress.set(clamp(0.0, 1.0, PROGRESS)); }
     public ReadOnlyDoubleProperty progressProperty() { return progress; }
 
+    public UpdateMode getUpdateMode() { return null == updateMode ? _updateMode : updateMode.get(); }
+    /**
+     * Defines when the progress will be updated while the timer is running.
+     * CONTINUOUS updates the progress on every pulse, PIXEL only updates it
+     * if the progress bar would move by at least one pixel at the current size.
+     */
+    public void setUpdateMode(final UpdateMode MODE) {
+        if (null == updateMode) {
+            _updateMode = MODE;
+        } else {
+            updateMode.set(MODE);
+        }
+    }
+    public ObjectProperty<UpdateMode> updateModeProperty() {
+        if (null == updateMode) {
+            updateMode = new ObjectPropertyBase<UpdateMode>(_updateMode) {
+                @Override public Object getBean() { return Timer.this; }
+                @Override public String getName() { return "updateMode"; }
+            };
+            _updateMode = null;
+        }
+        return updateMode;
+    }
+
+    public RenderMode getRenderMode() { return null == renderMode ? _renderMode : renderMode.get(); }
+    /**
+     * Defines how the progress bar will be rendered. SHAPES (default) uses
+     * an Arc, SPRITES shows pre-rendered images from the TimerSpriteCache
+     * which are shared by all timers with the same size and colors. Timers
+     * that are too large for sprites will render shapes.
+     */
+    public void setRenderMode(final RenderMode MODE) {
+        if (null == renderMode) {
+            _renderMode = MODE;
+            redraw();
+        } else {
+            renderMode.set(MODE);
+        }
+    }
+    public ObjectProperty<RenderMode> renderModeProperty() {
+        if (null == renderMode) {
+            renderMode = new ObjectPropertyBase<RenderMode>(_renderMode) {
+                @Override protected void invalidated() { redraw(); }
+                @Override public Object getBean() { return Timer.this; }
+                @Override public String getName() { return "renderMode"; }
+            };
+            _renderMode = null;
+        }
+        return renderMode;
+    }
+
+    public double getMaxUpdateRate() { return null == maxUpdateRate ? _maxUpdateRate : maxUpdateRate.get(); }
+    /**
+     * Defines the maximum number of progress updates per second while the timer is running.
+     * A value of 0 (default) means the progress will be updated on every pulse.
+     */
+    public void setMaxUpdateRate(final double RATE) {
+        if (null == maxUpdateRate) {
+            _maxUpdateRate = clamp(0, Double.MAX_VALUE, RATE);
+        } else {
+            maxUpdateRate.set(RATE);
+        }
+    }
+    public DoubleProperty maxUpdateRateProperty() {
+        if (null == maxUpdateRate) {
+            maxUpdateRate = new DoublePropertyBase(_maxUpdateRate) {
+                @Override protected void invalidated() { if (get() < 0) { set(0); } }
+                @Override public Object getBean() { return Timer.this; }
+                @Override public String getName() { return "maxUpdateRate"; }
+            };
+        }
+        return maxUpdateRate;
+    }
+
+    public double getWaitingFrameRate() { return null == waitingFrameRate ? _waitingFrameRate : waitingFrameRate.get(); }
+    /**
+     * Defines how many times per second the spinner of a waiting timer will
+     * be rotated, e.g. 10 for small timers where a smooth rotation is hardly
+     * visible. A value of 0 (default) rotates the spinner on every pulse.
+     */
+    public void setWaitingFrameRate(final double RATE) {
+        if (null == waitingFrameRate) {
+            _waitingFrameRate = clamp(0, Double.MAX_VALUE, RATE);
+        } else {
+            waitingFrameRate.set(RATE);
+        }
+    }
+    public DoubleProperty waitingFrameRateProperty() {
+        if (null == waitingFrameRate) {
+            waitingFrameRate = new DoublePropertyBase(_waitingFrameRate) {
+                @Override protected void invalidated() { if (get() < 0) { set(0); } }
+                @Override public Object getBean() { return Timer.this; }
+                @Override public String getName() { return "waitingFrameRate"; }
+            };
+        }
+        return waitingFrameRate;
+    }
+
+    public Precision getPrecision() { return model.getPrecision(); }
+    /**
+     * Defines if the deadline events are fired with the FX pulse (FRAME, default)
+     * or exactly at their deadline on the PrecisionScheduler thread. The ring
+     * will still be animated with the FX pulse. In precision mode the listeners
+     * are called on the PrecisionScheduler thread.
+     */
+    public void setPrecision(final Precision PRECISION) { model.setPrecision(PRECISION); }
+
+    public TimerProgram getProgram() { return model.getProgram(); }
+    /**
+     * Plays the given program of phases, the duration of the timer becomes
+     * the duration of the program. Setting the duration removes the program.
+     */
+    public void setProgram(final TimerProgram PROGRAM) {
+        model.setProgram(PROGRAM);
+        syncDuration();
+    }
+
     public Duration getDuration() { return null == duration ? _duration : duration.get(); }
     public void setDuration(final Duration DURATION) {
         if (null == duration) {
             _duration = DURATION;
+            model.setDurationNanos(toNanos(DURATION));
         } else {
             duration.set(DURATION);
         }
@@ -316,6 +480,7 @@ public class Timer extends Region {
     public ObjectProperty<Duration> durationProperty() {
         if (null == duration) {
             duration = new ObjectPropertyBase<Duration>(_duration) {
+                @Override protected void invalidated() { if (!get().equals(toDuration(model.getDurationNanos()))) { model.setDurationNanos(toNanos(get())); } }
                 @Override public Object getBean() { return Timer.this; }
                 @Override public String getName() { return "duration"; }
             };
@@ -324,107 +489,210 @@ public class Timer extends Region {
         return duration;
     }
 
-    public Duration getCurrentTime() { return timeline.getCurrentTime(); }
-
-    public ReadOnlyObjectProperty<Duration> currentTimeProperty() { return timeline.currentTimeProperty(); }
-
-    public void start() {
-        ring.setLength(360);
-
-        KeyValue kv0 = new KeyValue(progress, 0.0);
-        KeyValue kv1 = new KeyValue(progress, 1.0);
-
-        KeyFrame kf0 = new KeyFrame(Duration.ZERO, kv0);
-        KeyFrame kf1 = new KeyFrame(getDuration(), kv1);
-
-        timeline.getKeyFrames().setAll(kf0, kf1);
-
-        if (isPlayButtonVisible()) { disableNode(playButton); }
-        enableNode(stopButton);
-
-        timeline.setCycleCount(1);
-        timeline.playFromStart();
-
-        state = State.RUNNING;
-        fireTimerEvent(STARTED);
+    public Duration getTickInterval() { return null == tickInterval ? _tickInterval : tickInterval.get(); }
+    /**
+     * Defines the interval of the TICK events, Duration.ZERO (default) disables them.
+     */
+    public void setTickInterval(final Duration INTERVAL) {
+        if (null == tickInterval) {
+            _tickInterval = INTERVAL;
+            model.setTickIntervalNanos(toNanos(INTERVAL));
+        } else {
+            tickInterval.set(INTERVAL);
+        }
+    }
+    public ObjectProperty<Duration> tickIntervalProperty() {
+        if (null == tickInterval) {
+            tickInterval = new ObjectPropertyBase<Duration>(_tickInterval) {
+                @Override protected void invalidated() { if (!get().equals(toDuration(model.getTickIntervalNanos()))) { model.setTickIntervalNanos(toNanos(get())); } }
+                @Override public Object getBean() { return Timer.this; }
+                @Override public String getName() { return "tickInterval"; }
+            };
+            _tickInterval = null;
+        }
+        return tickInterval;
     }
-    public void startFromCurrent() {
-        ring.setLength(360);
 
-        KeyValue kv0 = new KeyValue(progress, 0.0);
-        KeyValue kv1 = new KeyValue(progress, 1.0);
+    public Duration getCurrentTime() { return Duration.millis(model.getElapsedNanos() / 1_000_000.0); }
 
-        KeyFrame kf0 = new KeyFrame(Duration.ZERO, kv0);
-        KeyFrame kf1 = new KeyFrame(getDuration(), kv1);
+    public ReadOnlyObjectProperty<Duration> currentTimeProperty() {
+        if (null == currentTime) { currentTime = new ReadOnlyObjectWrapper<>(Timer.this, "currentTime", getCurrentTime()); }
+        return currentTime.getReadOnlyProperty();
+    }
 
-        timeline.getKeyFrames().setAll(kf0, kf1);
-        timeline.jumpTo(currentDuration);
+    /**
+     * @return the toolkit free model that holds the countdown state of this timer
+     */
+    public TimerModel getModel() { return model; }
+    /**
+     * Binds this timer to the given model, e.g. to reuse the control in a
+     * virtualized cell. The previous model keeps its state and keeps
+     * running, it just won't be shown by this timer anymore. Duration,
+     * tick interval, state and progress are taken from the new model.
+     */
+    public void setModel(final TimerModel MODEL) {
+        if (null == MODEL) { throw new IllegalArgumentException("Model cannot be null"); }
+        if (MODEL == model) { return; }
+        model.removeView(Timer.this);
+        model = MODEL;
+        model.addView(Timer.this);
+        syncDuration();
+        final Duration TICK_INTERVAL = toDuration(model.getTickIntervalNanos());
+        if (null == tickInterval) { _tickInterval = TICK_INTERVAL; } else { tickInterval.set(TICK_INTERVAL); }
+
+        lastProgressUpdate = 0;
+        syncState(model.getState());
+        setProgress(model.getProgress());
+    }
 
-        if (isPlayButtonVisible()) { disableNode(playButton); }
-        enableNode(stopButton);
+    public State getState() { return model.getState(); }
+
+    public void start() { model.start(); }
+    public void startFromCurrent() { model.startFromCurrent(); }
+    public void stop() { model.stop(); }
+    public void reset() { model.reset(); }
+    public void waiting() { model.waiting(); }
+
+    /**
+     * Thread safe variants of the control methods that can be called from
+     * any thread. The commands are queued and applied on the FX application
+     * thread, all commands of a burst cost one Platform.runLater(). A
+     * command replaces a pending command of the same timer, e.g. startLater()
+     * followed by stopLater() only stops the timer. A pending duration is
+     * applied before the pending command.
+     */
+    public void startLater() { submit(TimerCommands.START); }
+    public void stopLater() { submit(TimerCommands.STOP); }
+    public void resetLater() { submit(TimerCommands.RESET); }
+    public void waitingLater() { submit(TimerCommands.WAITING); }
+    public void setDurationLater(final Duration DURATION) {
+        if (null == DURATION) { throw new IllegalArgumentException("Duration cannot be null"); }
+        PENDING_DURATION.set(this, DURATION);
+        TimerCommands.submit(this);
+    }
 
-        timeline.setCycleCount(1);
-        timeline.play();
+    private void submit(final int COMMAND) {
+        PENDING_COMMAND.set(this, COMMAND);
+        TimerCommands.submit(this);
+    }
 
-        state = State.RUNNING;
-        fireTimerEvent(CONTINUED);
+    // Called by TimerCommands, returns false if the timer is already queued
+    boolean markQueued() { return QUEUED.compareAndSet(this, 0, 1); }
+
+    // Called by TimerCommands on the FX application thread
+    void applyCommands() {
+        // Commands that are submitted from now on queue the timer again
+        QUEUED.set(this, 0);
+        final Duration DURATION = PENDING_DURATION.getAndSet(this, null);
+        if (null != DURATION) { setDuration(DURATION); }
+        switch(PENDING_COMMAND.getAndSet(this, TimerCommands.NONE)) {
+            case TimerCommands.START  : start(); break;
+            case TimerCommands.STOP   : stop(); break;
+            case TimerCommands.RESET  : reset(); break;
+            case TimerCommands.WAITING: waiting(); break;
+        }
     }
-    public void stop() {
-        currentDuration = state == State.WAITING ? Duration.ZERO : timeline.getCurrentTime();
-        timeline.stop();
-        timeline.setCycleCount(1);
 
+    private void running() {
+        play();
+        if (null == pane) { return; }
         ring.setLength(360);
+        ring.setRotate(0);
         ring.setStroke(getColor());
+        ring.setCache(false);
 
-        disableNode(stopButton);
+        updatePlayButton();
+        if (null == stopButton) { initStopButton(); }
         stopButton.setFill(getColor());
-        if (isPlayButtonVisible()) { enableNode(playButton); }
-
-        state = State.STOPPED;
-        fireTimerEvent(STOPPED);
-    }
-    public void reset() {
-        finished();
-        fireTimerEvent(RESET);
+        enableNode(stopButton);
     }
-    public void waiting() {
-        timeline.stop();
-        KeyValue kv0 = new KeyValue(ring.rotateProperty(), 0);
-        KeyValue kv1 = new KeyValue(ring.rotateProperty(), 360);
-
-        KeyFrame kf0 = new KeyFrame(Duration.ZERO, kv0);
-        KeyFrame kf1 = new KeyFrame(Duration.seconds(1), kv1);
-
-        timeline.getKeyFrames().setAll(kf0, kf1);
+    private void stopped() {
+        if (null == pane) { return; }
+        ring.setLength(360);
+        ring.setRotate(0);
+        ring.setStroke(getColor());
+        ring.setCache(false);
 
+        if (null != stopButton) {
+            disableNode(stopButton);
+            stopButton.setFill(getColor());
+        }
+        updatePlayButton();
+    }
+    private void waitingStarted() {
+        play();
+        if (null == pane) { return; }
         ring.setLength(300);
         ring.setStroke(getWaitingColor());
+        // The spinner is rasterized once and only rotated as a bitmap while waiting
+        ring.setCacheHint(CacheHint.ROTATE);
+        ring.setCache(true);
 
-        if (isPlayButtonVisible()) { disableNode(playButton); }
+        updatePlayButton();
+        if (null == stopButton) { initStopButton(); }
         stopButton.setFill(getWaitingColor());
         enableNode(stopButton);
+    }
 
-        timeline.setCycleCount(Animation.INDEFINITE);
-        timeline.play();
-
-        state = State.WAITING;
-        fireTimerEvent(WAITING);
+    // The play button is only shown while the timer is stopped
+    private void updatePlayButton() {
+        if (null == pane) { return; }
+        if (isPlayButtonVisible() && State.STOPPED == model.getState()) {
+            if (null == playButton) { initPlayButton(); }
+            enableNode(playButton);
+        } else if (null != playButton) {
+            disableNode(playButton);
+        }
     }
-    private void finished() {
-        timeline.stop();
-        timeline.setCycleCount(1);
 
-        ring.setLength(360);
-        setProgress(0);
-        currentDuration = Duration.ZERO;
+    private void play() {
+        if (!engineRegistered) {
+            engineRegistered = true;
+            TimerEngine.getInstance().add(this::onPulse);
+        }
+    }
 
-        disableNode(stopButton);
-        if (isPlayButtonVisible()) { enableNode(playButton); }
+    private boolean onPulse(final long NOW) {
+        final long    TIME   = model.time(NOW);
+        // Might fire SECOND and FINISHED events
+        final boolean ACTIVE = model.update(TIME);
+        // State changes that happened on the PrecisionScheduler thread are shown with the pulse
+        final State   STATE  = model.getState();
+        if (STATE != shownState) { syncState(STATE); }
+        if (ACTIVE) {
+            if (State.RUNNING == STATE) {
+                final double PROGRESS = model.getProgress(TIME);
+                if (isProgressUpdateDue(NOW, PROGRESS)) {
+                    lastProgressUpdate = NOW;
+                    setProgress(PROGRESS);
+                    updateCurrentTime();
+                }
+            } else if (null != ring) {
+                ring.setRotate(TimerEngine.spinnerAngle(NOW, getWaitingFrameRate()));
+            }
+            return true;
+        }
+        engineRegistered = false;
+        return false;
+    }
 
-        state = State.STOPPED;
+    private boolean isProgressUpdateDue(final long NOW, final double PROGRESS) {
+        final double RATE = getMaxUpdateRate();
+        if (RATE > 0 && NOW - lastProgressUpdate < (long) (1_000_000_000 / RATE)) { return false; }
+        if (UpdateMode.PIXEL == getUpdateMode()) {
+            // Length of the progress bar arc in pixels at the current size
+            final double CIRCUMFERENCE = null == geometry ? 0 : 2 * Math.PI * geometry.progressRadius;
+            return Math.abs(PROGRESS - getProgress()) * CIRCUMFERENCE >= 1;
+        }
+        return true;
     }
 
+    private void updateCurrentTime() { if (null != currentTime) { currentTime.set(getCurrentTime()); } }
+
+    private static long toNanos(final Duration DURATION) { return (long) (DURATION.toMillis() * 1_000_000); }
+
+    private static Duration toDuration(final long NANOS) { return 0 == NANOS ? Duration.ZERO : Duration.millis(NANOS / 1_000_000.0); }
+
     private double clamp(final double min, final double max, final double value) {
         if (value < min) return min;
         if (value > max) return max;
@@ -442,63 +710,246 @@ public class Timer extends Region {
 
 
     // ******************** EventHandling *************************************
-    public void setOnTimerEvent(final TimerEventListener LISTENER) { addTimerEventListener(LISTENER); }
-    public void addTimerEventListener(final TimerEventListener LISTENER) { if (!listenerList.contains(LISTENER)) listenerList.add(LISTENER); }
-    public void removeTimerEventListener(final TimerEventListener LISTENER) { if (listenerList.contains(LISTENER)) listenerList.remove(LISTENER); }
+    public void setOnTimerEvent(final TimerEventListener LISTENER) { model.setOnTimerEvent(LISTENER); }
+    public void addTimerEventListener(final TimerEventListener LISTENER) { model.addTimerEventListener(LISTENER); }
+    public void addTimerEventListener(final Set<TimerEvent.Type> TYPES, final TimerEventListener LISTENER) { model.addTimerEventListener(TYPES, LISTENER); }
+    public void removeTimerEventListener(final TimerEventListener LISTENER) { model.removeTimerEventListener(LISTENER); }
+    public void addTimerEventListener(final TimerEventListener LISTENER, final Executor EXECUTOR, final int CAPACITY, final AsyncTimerEventListener.OverflowPolicy POLICY) {
+        addTimerEventListener(EnumSet.allOf(TimerEvent.Type.class), LISTENER, EXECUTOR, CAPACITY, POLICY);
+    }
+    public void addTimerEventListener(final TimerEventListener LISTENER, final Executor EXECUTOR) { model.addTimerEventListener(LISTENER, EXECUTOR); }
+    /**
+     * The events of a Timer are fired on the FX application thread which
+     * must never wait for a listener, so the BLOCK policy is not supported.
+     */
+    public void addTimerEventListener(final Set<TimerEvent.Type> TYPES, final TimerEventListener LISTENER, final Executor EXECUTOR, final int CAPACITY, final AsyncTimerEventListener.OverflowPolicy POLICY) {
+        if (AsyncTimerEventListener.OverflowPolicy.BLOCK == POLICY) { throw new IllegalArgumentException("BLOCK would let the FX application thread wait, use DROP_OLDEST or COALESCE_SECOND"); }
+        model.addTimerEventListener(TYPES, LISTENER, EXECUTOR, CAPACITY, POLICY);
+    }
+
+    public void fireTimerEvent(final TimerEvent EVENT) { model.fireTimerEvent(EVENT); }
+
+    // Called by the model before the listeners get informed
+    void onModelEvent(final TimerEvent EVENT) {
+        if (!Platform.isFxApplicationThread()) {
+            // State changes of other threads, e.g. of the PrecisionScheduler, are shown on the FX application thread
+            switch(EVENT.getType()) {
+                case SECOND          :
+                case TICK            :
+                case PHASE_CHANGED   : return;
+                default              : Platform.runLater(this::syncModel); return;
+            }
+        }
+        switch(EVENT.getType()) {
+            case STARTED         :
+            case CONTINUED       : running(); break;
+            case WAITING         : waitingStarted(); break;
+            case STOPPED         : stopped(); setProgress(model.getProgress()); break;
+            case FINISHED        :
+            case RESET           : stopped(); setProgress(0); break;
+            case SECOND          :
+            case TICK            :
+            case PHASE_CHANGED   : return;
+            case DURATION_CHANGED:
+                if (toNanos(getDuration()) != model.getDurationNanos()) { syncDuration(); }
+                updateCurrentTime();
+                return;
+        }
+        // The duration might have been changed by TimerModel.restore()
+        if (toNanos(getDuration()) != model.getDurationNanos()) { syncDuration(); }
+        shownState = model.getState();
+        updateCurrentTime();
+    }
+
+    // The model might have changed again until this runs, so the current state of the model is shown
+    private void syncModel() {
+        if (toNanos(getDuration()) != model.getDurationNanos()) { syncDuration(); }
+        syncState(model.getState());
+    }
 
-    public void fireTimerEvent(final TimerEvent EVENT) {
-        for (TimerEventListener listener : listenerList) { listener.onTimerEvent(EVENT); }
+    private void syncDuration() {
+        final Duration DURATION = toDuration(model.getDurationNanos());
+        if (null == duration) { _duration = DURATION; } else { duration.set(DURATION); }
+    }
+
+    private void syncState(final State STATE) {
+        switch(STATE) {
+            case RUNNING: running(); break;
+            case WAITING: waitingStarted(); break;
+            case STOPPED: stopped(); setProgress(model.getProgress()); break;
+        }
+        shownState = STATE;
+        updateCurrentTime();
     }
 
 
     // ******************** Resizing ******************************************
     private void resize() {
-        width   = getWidth() - getInsets().getLeft() - getInsets().getRight();
-        height  = getHeight() - getInsets().getTop() - getInsets().getBottom();
-        size    = width < height ? width : height;
-        centerX = size * 0.5;
-        centerY = size * 0.5;
-
-        if (width > 0 && height > 0) {
-            pane.setMaxSize(size, size);
-            pane.setPrefSize(size, size);
-            pane.relocate((getWidth() - size) * 0.5, (getHeight() - size) * 0.5);
+        if (TimerInstrumentation.ENABLED) { TimerInstrumentation.render("resize", this::resizeNodes); } else { resizeNodes(); }
+    }
 
-            ring.setCenterX(centerX);
-            ring.setCenterY(centerY);
-            ring.setRadiusX(centerX);
-            ring.setRadiusY(centerY);
-            ring.setStrokeWidth(size * 0.05263158);
-
-            progressBar.setCenterX(centerX);
-            progressBar.setCenterY(centerY);
-            progressBar.setRadiusX(size * 0.44736842);
-            progressBar.setRadiusY(size * 0.44736842);
-            progressBar.setStrokeWidth(size * 0.10526316);
-
-            stopButton.setWidth(size * 0.26315789);
-            stopButton.setHeight(size * 0.26315789);
-            stopButton.relocate((centerX - size * 0.13157895), (centerY - size * 0.13157895));
-
-            playButtonP1.setX(size * 0.36842105);
-            playButtonP1.setY(size * 0.26315789);
-            playButtonP2.setX(size * 0.73684211);
-            playButtonP2.setY(size * 0.5);
-            playButtonP3.setX(size * 0.36842105);
-            playButtonP3.setY(size * 0.73684211);
+    private void resizeNodes() {
+        geometry = Geometry.of(size);
 
-            redraw();
-        }
+        pane.setMaxSize(size, size);
+        pane.setPrefSize(size, size);
+
+        ring.setCenterX(geometry.center);
+        ring.setCenterY(geometry.center);
+        ring.setRadiusX(geometry.center);
+        ring.setRadiusY(geometry.center);
+        ring.setStrokeWidth(geometry.ringStrokeWidth);
+
+        progressBar.setCenterX(geometry.center);
+        progressBar.setCenterY(geometry.center);
+        progressBar.setRadiusX(geometry.progressRadius);
+        progressBar.setRadiusY(geometry.progressRadius);
+        progressBar.setStrokeWidth(geometry.progressStrokeWidth);
+
+        if (null != stopButton) { resizeStopButton(); }
+        if (null != playButton) { resizePlayButton(); }
+
+        redraw();
+    }
+
+    private void resizeStopButton() {
+        stopButton.setWidth(geometry.stopButtonSize);
+        stopButton.setHeight(geometry.stopButtonSize);
+        stopButton.relocate(geometry.stopButtonXY, geometry.stopButtonXY);
+    }
+
+    private void resizePlayButton() {
+        playButtonP1.setX(geometry.playButtonX1);
+        playButtonP1.setY(geometry.playButtonY1);
+        playButtonP2.setX(geometry.playButtonX2);
+        playButtonP2.setY(geometry.center);
+        playButtonP3.setX(geometry.playButtonX1);
+        playButtonP3.setY(geometry.playButtonY3);
     }
 
+    // Marks the paints as dirty, they will be applied once in the next layout pass
     private void redraw() {
+        if (dirty || null == pane) { return; }
+        dirty = true;
+        requestLayout();
+    }
+
+    /**
+     * Single layout pass, the geometry of the nodes will only be
+     * recalculated if the size of the timer has changed.
+     */
+    @Override protected void layoutChildren() {
+        if (null == pane) { initGraphics(); }
+        final Insets INSETS = getInsets();
+        final double WIDTH  = getWidth() - INSETS.getLeft() - INSETS.getRight();
+        final double HEIGHT = getHeight() - INSETS.getTop() - INSETS.getBottom();
+        if (WIDTH > 0 && HEIGHT > 0) {
+            final double SIZE = WIDTH < HEIGHT ? WIDTH : HEIGHT;
+            if (null == geometry || Double.compare(SIZE, size) != 0) {
+                size = SIZE;
+                resize();
+            }
+            pane.relocate((getWidth() - size) * 0.5, (getHeight() - size) * 0.5);
+        }
+        super.layoutChildren();
+        if (dirty) {
+            dirty = false;
+            if (TimerInstrumentation.ENABLED) { TimerInstrumentation.render("redraw", this::applyPaints); } else { applyPaints(); }
+        }
+    }
+
+    private void applyPaints() {
         ring.setFill(getBackgroundColor());
-        ring.setStroke(state == State.WAITING ? getWaitingColor() : getColor());
+        ring.setStroke(State.WAITING == model.getState() ? getWaitingColor() : getColor());
         progressBar.setFill(getBackgroundColor());
         progressBar.setStroke(getColor());
-        stopButton.setFill(state == State.WAITING ? getWaitingColor() : getColor());
-        playButton.setFill(getColor());
-        pane.setBackground(new Background(new BackgroundFill(backgroundPaint, CornerRadii.EMPTY, Insets.EMPTY)));
-        pane.setBorder(new Border(new BorderStroke(borderPaint, BorderStrokeStyle.SOLID, CornerRadii.EMPTY, new BorderWidths(borderWidth / PREFERRED_WIDTH * size))));
+        updateSprite();
+        if (null != stopButton) { stopButton.setFill(State.WAITING == model.getState() ? getWaitingColor() : getColor()); }
+        if (null != playButton) { playButton.setFill(getColor()); }
+
+        // Only create new Background and Border objects if paint or size have changed
+        if (null == paneBackground || backgroundPaint != paneBackgroundPaint) {
+            paneBackgroundPaint = backgroundPaint;
+            paneBackground      = Color.TRANSPARENT.equals(backgroundPaint) ? Background.EMPTY : new Background(new BackgroundFill(backgroundPaint, CornerRadii.EMPTY, Insets.EMPTY));
+            pane.setBackground(paneBackground);
+        }
+        final double BORDER_WIDTH = borderWidth / PREFERRED_WIDTH * size;
+        if (null == paneBorder || borderPaint != paneBorderPaint || Double.compare(BORDER_WIDTH, paneBorderWidth) != 0) {
+            paneBorderPaint = borderPaint;
+            paneBorderWidth = BORDER_WIDTH;
+            paneBorder      = Color.TRANSPARENT.equals(borderPaint) || Double.compare(BORDER_WIDTH, 0) == 0 ? Border.EMPTY : new Border(new BorderStroke(borderPaint, BorderStrokeStyle.SOLID, CornerRadii.EMPTY, new BorderWidths(BORDER_WIDTH)));
+            pane.setBorder(paneBorder);
+        }
+    }
+
+    // Switches between the progress bar shape and the sprite of the current size and colors
+    private void updateSprite() {
+        final Color                   BACKGROUND = getBackgroundColor();
+        final TimerSpriteCache.Sprite SPRITE     = RenderMode.SPRITES == getRenderMode() && null != BACKGROUND ?
+                                                   TimerSpriteCache.get(size, Math.max(1, Math.max(getScaleX(), getScaleY())), getColor(), BACKGROUND) : null;
+        if (null == SPRITE) {
+            if (null != sprite) {
+                sprite = null;
+                progressSprite.setImage(null);
+                progressSprite.setVisible(false);
+                progressBar.setLength(-360.0 * getProgress());
+                progressBar.setVisible(true);
+            }
+            return;
+        }
+        if (null == progressSprite) {
+            progressSprite = new ImageView();
+            progressSprite.setMouseTransparent(true);
+            pane.getChildren().add(pane.getChildren().indexOf(progressBar) + 1, progressSprite);
+        }
+        if (SPRITE != sprite) {
+            sprite = SPRITE;
+            progressSprite.setImage(SPRITE.getImage());
+        }
+        progressSprite.setFitWidth(size);
+        progressSprite.setFitHeight(size);
+        progressSprite.setViewport(SPRITE.getViewport(getProgress()));
+        progressSprite.setVisible(true);
+        progressBar.setVisible(false);
+    }
+
+
+    // ******************** Inner Classes *************************************
+    /**
+     * Geometry of the nodes for one size, shared by all timers of that
+     * size and used by the TimerGrid and the TimerSpriteCache to paint
+     * timers that look the same. Only used on the FX application thread.
+     */
+    static final class Geometry {
+        private static final int                   MAX_CACHED = 64;
+        private static final Map<Double, Geometry> CACHE      = new LinkedHashMap<Double, Geometry>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(final Map.Entry<Double, Geometry> ELDEST) { return size() > MAX_CACHED; }
+        };
+                       final double                center;
+                       final double                ringStrokeWidth;
+                       final double                progressRadius;
+                       final double                progressStrokeWidth;
+                       final double                stopButtonSize;
+                       final double                stopButtonXY;
+                       final double                playButtonX1;
+                       final double                playButtonY1;
+                       final double                playButtonX2;
+                       final double                playButtonY3;
+
+
+        private Geometry(final double SIZE) {
+            center              = SIZE * 0.5;
+            ringStrokeWidth     = SIZE * 0.05263158;
+            progressRadius      = SIZE * 0.44736842;
+            progressStrokeWidth = SIZE * 0.10526316;
+            stopButtonSize      = SIZE * 0.26315789;
+            stopButtonXY        = center - SIZE * 0.13157895;
+            playButtonX1        = SIZE * 0.36842105;
+            playButtonY1        = SIZE * 0.26315789;
+            playButtonX2        = SIZE * 0.73684211;
+            playButtonY3        = SIZE * 0.73684211;
+        }
+
+        static Geometry of(final double SIZE) { return CACHE.computeIfAbsent(SIZE, Geometry::new); }
     }
 }
@@ -16,9 +16,6 @@
 
 package eu.hansolo.fx.timer;
 
-import javafx.beans.property.BooleanProperty;
-import javafx.beans.property.DoubleProperty;
-import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.Property;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
@@ -29,10 +26,13 @@ import javafx.scene.paint.Color;
 import javafx.util.Duration;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Stream;
 
 
 public class TimerBuilder<B extends TimerBuilder<B>> {
-    private HashMap<String, Property> properties = new HashMap<>();
+    private HashMap<String, Property<?>> properties = new HashMap<>();
+    private TimerTemplate                template;
 
 
     // ******************** Constructors **************************************
@@ -45,155 +45,158 @@ public class TimerBuilder<B extends TimerBuilder<B>> {
     }
 
     public B backgroundColor(final Color COLOR) {
-        properties.put("backgroundColor", new SimpleObjectProperty<>(COLOR));
+        put("backgroundColor", new SimpleObjectProperty<>(COLOR));
         return (B)this;
     }
 
     public B color(final Color COLOR) {
-        properties.put("color", new SimpleObjectProperty<>(COLOR));
+        put("color", new SimpleObjectProperty<>(COLOR));
         return (B)this;
     }
 
     public B waitingColor(final Color COLOR) {
-        properties.put("waitingColor", new SimpleObjectProperty(COLOR));
+        put("waitingColor", new SimpleObjectProperty<>(COLOR));
         return (B)this;
     }
 
     public B playButtonVisible(final boolean VISIBLE) {
-        properties.put("playButtonVisible", new SimpleBooleanProperty(VISIBLE));
+        put("playButtonVisible", new SimpleBooleanProperty(VISIBLE));
         return (B)this;
     }
 
     public B duration(final Duration DURATION) {
-        properties.put("duration", new SimpleObjectProperty<>(DURATION));
+        put("duration", new SimpleObjectProperty<>(DURATION));
+        return (B)this;
+    }
+
+    public B tickInterval(final Duration INTERVAL) {
+        put("tickInterval", new SimpleObjectProperty<>(INTERVAL));
+        return (B)this;
+    }
+
+    public B program(final TimerProgram PROGRAM) {
+        put("program", new SimpleObjectProperty<>(PROGRAM));
+        return (B)this;
+    }
+
+    public B precision(final TimerModel.Precision PRECISION) {
+        put("precision", new SimpleObjectProperty<>(PRECISION));
+        return (B)this;
+    }
+
+    public B updateMode(final Timer.UpdateMode MODE) {
+        put("updateMode", new SimpleObjectProperty<>(MODE));
+        return (B)this;
+    }
+
+    public B renderMode(final Timer.RenderMode MODE) {
+        put("renderMode", new SimpleObjectProperty<>(MODE));
+        return (B)this;
+    }
+
+    public B waitingFrameRate(final double RATE) {
+        put("waitingFrameRate", new SimpleDoubleProperty(RATE));
+        return (B)this;
+    }
+
+    public B maxUpdateRate(final double RATE) {
+        put("maxUpdateRate", new SimpleDoubleProperty(RATE));
         return (B)this;
     }
 
     public final B prefSize(final double WIDTH, final double HEIGHT) {
-        properties.put("prefSize", new SimpleObjectProperty<>(new Dimension2D(WIDTH, HEIGHT)));
+        put("prefSize", new SimpleObjectProperty<>(new Dimension2D(WIDTH, HEIGHT)));
         return (B)this;
     }
     public final B minSize(final double WIDTH, final double HEIGHT) {
-        properties.put("minSize", new SimpleObjectProperty<>(new Dimension2D(WIDTH, HEIGHT)));
+        put("minSize", new SimpleObjectProperty<>(new Dimension2D(WIDTH, HEIGHT)));
         return (B)this;
     }
     public final B maxSize(final double WIDTH, final double HEIGHT) {
-        properties.put("maxSize", new SimpleObjectProperty<>(new Dimension2D(WIDTH, HEIGHT)));
+        put("maxSize", new SimpleObjectProperty<>(new Dimension2D(WIDTH, HEIGHT)));
         return (B)this;
     }
 
     public final B prefWidth(final double PREF_WIDTH) {
-        properties.put("prefWidth", new SimpleDoubleProperty(PREF_WIDTH));
+        put("prefWidth", new SimpleDoubleProperty(PREF_WIDTH));
         return (B)this;
     }
     public final B prefHeight(final double PREF_HEIGHT) {
-        properties.put("prefHeight", new SimpleDoubleProperty(PREF_HEIGHT));
+        put("prefHeight", new SimpleDoubleProperty(PREF_HEIGHT));
         return (B)this;
     }
 
     public final B minWidth(final double MIN_WIDTH) {
-        properties.put("minWidth", new SimpleDoubleProperty(MIN_WIDTH));
+        put("minWidth", new SimpleDoubleProperty(MIN_WIDTH));
         return (B)this;
     }
     public final B minHeight(final double MIN_HEIGHT) {
-        properties.put("minHeight", new SimpleDoubleProperty(MIN_HEIGHT));
+        put("minHeight", new SimpleDoubleProperty(MIN_HEIGHT));
         return (B)this;
     }
 
     public final B maxWidth(final double MAX_WIDTH) {
-        properties.put("maxWidth", new SimpleDoubleProperty(MAX_WIDTH));
+        put("maxWidth", new SimpleDoubleProperty(MAX_WIDTH));
         return (B)this;
     }
     public final B maxHeight(final double MAX_HEIGHT) {
-        properties.put("maxHeight", new SimpleDoubleProperty(MAX_HEIGHT));
+        put("maxHeight", new SimpleDoubleProperty(MAX_HEIGHT));
         return (B)this;
     }
 
     public final B scaleX(final double SCALE_X) {
-        properties.put("scaleX", new SimpleDoubleProperty(SCALE_X));
+        put("scaleX", new SimpleDoubleProperty(SCALE_X));
         return (B)this;
     }
     public final B scaleY(final double SCALE_Y) {
-        properties.put("scaleY", new SimpleDoubleProperty(SCALE_Y));
+        put("scaleY", new SimpleDoubleProperty(SCALE_Y));
         return (B)this;
     }
 
     public final B layoutX(final double LAYOUT_X) {
-        properties.put("layoutX", new SimpleDoubleProperty(LAYOUT_X));
+        put("layoutX", new SimpleDoubleProperty(LAYOUT_X));
         return (B)this;
     }
     public final B layoutY(final double LAYOUT_Y) {
-        properties.put("layoutY", new SimpleDoubleProperty(LAYOUT_Y));
+        put("layoutY", new SimpleDoubleProperty(LAYOUT_Y));
         return (B)this;
     }
 
     public final B translateX(final double TRANSLATE_X) {
-        properties.put("translateX", new SimpleDoubleProperty(TRANSLATE_X));
+        put("translateX", new SimpleDoubleProperty(TRANSLATE_X));
         return (B)this;
     }
     public final B translateY(final double TRANSLATE_Y) {
-        properties.put("translateY", new SimpleDoubleProperty(TRANSLATE_Y));
+        put("translateY", new SimpleDoubleProperty(TRANSLATE_Y));
         return (B)this;
     }
 
     public final B padding(final Insets INSETS) {
-        properties.put("padding", new SimpleObjectProperty<>(INSETS));
-        return (B)this;
-    }
-
-    public final Timer build() {
-        final Timer CONTROL = new Timer();
-        for (String key : properties.keySet()) {
-            if ("prefSize".equals(key)) {
-                Dimension2D dim = ((ObjectProperty<Dimension2D>) properties.get(key)).get();
-                CONTROL.setPrefSize(dim.getWidth(), dim.getHeight());
-            } else if("minSize".equals(key)) {
-                Dimension2D dim = ((ObjectProperty<Dimension2D>) properties.get(key)).get();
-                CONTROL.setMinSize(dim.getWidth(), dim.getHeight());
-            } else if("maxSize".equals(key)) {
-                Dimension2D dim = ((ObjectProperty<Dimension2D>) properties.get(key)).get();
-                CONTROL.setMaxSize(dim.getWidth(), dim.getHeight());
-            } else if("prefWidth".equals(key)) {
-                CONTROL.setPrefWidth(((DoubleProperty) properties.get(key)).get());
-            } else if("prefHeight".equals(key)) {
-                CONTROL.setPrefHeight(((DoubleProperty) properties.get(key)).get());
-            } else if("minWidth".equals(key)) {
-                CONTROL.setMinWidth(((DoubleProperty) properties.get(key)).get());
-            } else if("minHeight".equals(key)) {
-                CONTROL.setMinHeight(((DoubleProperty) properties.get(key)).get());
-            } else if("maxWidth".equals(key)) {
-                CONTROL.setMaxWidth(((DoubleProperty) properties.get(key)).get());
-            } else if("maxHeight".equals(key)) {
-                CONTROL.setMaxHeight(((DoubleProperty) properties.get(key)).get());
-            } else if("scaleX".equals(key)) {
-                CONTROL.setScaleX(((DoubleProperty) properties.get(key)).get());
-            } else if("scaleY".equals(key)) {
-                CONTROL.setScaleY(((DoubleProperty) properties.get(key)).get());
-            } else if ("layoutX".equals(key)) {
-                CONTROL.setLayoutX(((DoubleProperty) properties.get(key)).get());
-            } else if ("layoutY".equals(key)) {
-                CONTROL.setLayoutY(((DoubleProperty) properties.get(key)).get());
-            } else if ("translateX".equals(key)) {
-                CONTROL.setTranslateX(((DoubleProperty) properties.get(key)).get());
-            } else if ("translateY".equals(key)) {
-                CONTROL.setTranslateY(((DoubleProperty) properties.get(key)).get());
-            } else if ("padding".equals(key)) {
-                CONTROL.setPadding(((ObjectProperty<Insets>) properties.get(key)).get());
-            } else if("styleClass".equals(key)) {
-                CONTROL.getStyleClass().setAll("timer");
-                CONTROL.getStyleClass().addAll(((ObjectProperty<String[]>) properties.get(key)).get());
-            } else if ("backgroundColor".equals(key)) {
-                CONTROL.setBackgroundColor(((ObjectProperty<Color>) properties.get(key)).get());
-            } else if ("color".equals(key)) {
-                CONTROL.setColor(((ObjectProperty<Color>) properties.get(key)).get());
-            } else if ("waitingColor".equals(key)) {
-                CONTROL.setWaitingColor(((ObjectProperty<Color>) properties.get(key)).get());
-            } else if ("playButtonVisible".equals(key)) {
-                CONTROL.setPlayButtonVisible(((BooleanProperty) properties.get(key)).get());
-            } else if ("duration".equals(key)) {
-                CONTROL.setDuration(((ObjectProperty<Duration>) properties.get(key)).get());
-            }
-        }
-        return CONTROL;
+        put("padding", new SimpleObjectProperty<>(INSETS));
+        return (B)this;
+    }
+
+    /**
+     * Compiles the current settings into an immutable template that can
+     * create any number of configured timers without looking up the settings again.
+     * The template is cached until the settings of the builder change.
+     */
+    public final TimerTemplate compile() {
+        if (null == template) { template = new TimerTemplate(properties); }
+        return template;
+    }
+
+    public final Timer build() { return compile().create(); }
+
+    public final List<Timer> buildMany(final int COUNT) { return compile().create(COUNT); }
+
+    /**
+     * @return an infinite stream of configured timers, use limit() to define the number
+     */
+    public final Stream<Timer> stream() { return compile().stream(); }
+
+    private void put(final String KEY, final Property<?> PROPERTY) {
+        properties.put(KEY, PROPERTY);
+        template = null;
     }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+/**
+ * Monotonic time source in nanoseconds that drives a TimerModel.
+ * SYSTEM is based on System.nanoTime() and the default of all models.
+ * A scaled clock lets the time pass faster, e.g. 100 times, and a
+ * ManualTimerClock only moves when it is advanced explicitly, which
+ * replays the events of a model deterministically and at full speed.
+ * The PrecisionScheduler and the FX pulse only work with the SYSTEM
+ * clock, models with another clock fire all their events in update().
+ */
+@FunctionalInterface
+public interface TimerClock {
+    TimerClock SYSTEM = System::nanoTime;
+
+
+    /**
+     * @return the current time of this clock in nanoseconds, only differences are meaningful
+     */
+    long nanoTime();
+
+    /**
+     * @param FACTOR the speed of the clock compared to the system clock, e.g. 100 for 100 times faster
+     * @return a clock that passes the given factor faster than the system clock from now on
+     */
+    static TimerClock scaled(final double FACTOR) {
+        if (!(FACTOR > 0) || Double.isInfinite(FACTOR)) { throw new IllegalArgumentException("Factor must be positive"); }
+        final long ORIGIN = System.nanoTime();
+        return () -> ORIGIN + (long) ((System.nanoTime() - ORIGIN) * FACTOR);
+    }
+
+    static ManualTimerClock manual() { return new ManualTimerClock(); }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Lock free queue of the timers that have pending commands from the
+ * thread safe control methods like Timer.startLater(). A timer is only
+ * queued once no matter how many commands it gets, its pending commands
+ * are kept in the timer and the last one wins. The queue is drained by
+ * a single Platform.runLater() per burst of commands.
+ */
+final class TimerCommands {
+            static final int                          NONE      = 0;
+            static final int                          START     = 1;
+            static final int                          STOP      = 2;
+            static final int                          RESET     = 3;
+            static final int                          WAITING   = 4;
+    private static final ConcurrentLinkedQueue<Timer> QUEUE     = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean                SCHEDULED = new AtomicBoolean(false);
+
+
+    // ******************** Constructors **************************************
+    private TimerCommands() {}
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Queues the given timer if it is not queued yet and schedules the drain if needed.
+     */
+    static void submit(final Timer TIMER) {
+        if (!TIMER.markQueued()) { return; }
+        QUEUE.add(TIMER);
+        if (SCHEDULED.compareAndSet(false, true)) { Platform.runLater(TimerCommands::drain); }
+    }
+
+    private static void drain() {
+        // Timers that are queued from now on schedule the next drain
+        SCHEDULED.set(false);
+        Timer timer;
+        while (null != (timer = QUEUE.poll())) { timer.applyCommands(); }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.Arrays;
+
+
+/**
+ * Shared pulse source for all timers.
+ * Instead of one Timeline per Timer a single AnimationTimer reads
+ * System.nanoTime() once per pulse and hands it to every registered
+ * client. Clients stay registered as long as onPulse() returns true.
+ * The engine stops its AnimationTimer when no client is left.
+ * Must only be used on the FX application thread.
+ */
+public final class TimerEngine {
+    private static final TimerEngine    INSTANCE         = new TimerEngine();
+    private static final long           NANOS_PER_TURN   = 1_000_000_000L;
+    private static final double         DEGREES_PER_NANO = 360.0 / NANOS_PER_TURN;
+    private        final AnimationTimer animationTimer;
+    private              Client[]       clients;
+    private              int            count;
+    private              boolean        running;
+
+
+    // ******************** Constructors **************************************
+    private TimerEngine() {
+        clients        = new Client[64];
+        count          = 0;
+        running        = false;
+        animationTimer = new AnimationTimer() {
+            @Override public void handle(final long NOW) { pulse(); }
+        };
+    }
+
+
+    // ******************** Methods *******************************************
+    public static TimerEngine getInstance() { return INSTANCE; }
+
+    public int getClientCount() { return count; }
+
+    /**
+     * Rotation angle of the waiting spinners at the given pulse, one turn
+     * per second. The angle only depends on the pulse time so that all
+     * spinners are in phase. With a frame rate the angle only changes that
+     * many times per second, at the same pulses for all spinners.
+     * @param FRAME_RATE the frames per second or 0 to change the angle on every pulse
+     */
+    static double spinnerAngle(final long NOW, final double FRAME_RATE) {
+        long phase = Math.floorMod(NOW, NANOS_PER_TURN);
+        if (FRAME_RATE > 0) {
+            final long FRAME_NANOS = (long) (NANOS_PER_TURN / FRAME_RATE);
+            if (FRAME_NANOS > 0) { phase -= phase % FRAME_NANOS; }
+        }
+        return phase * DEGREES_PER_NANO;
+    }
+
+    void add(final Client CLIENT) {
+        if (count == clients.length) { clients = Arrays.copyOf(clients, count << 1); }
+        clients[count++] = CLIENT;
+        if (!running) {
+            running = true;
+            animationTimer.start();
+        }
+    }
+
+    private void pulse() {
+        final long NOW   = System.nanoTime();
+        final int  SIZE  = count;
+        int        alive = 0;
+        for (int i = 0 ; i < SIZE ; i++) {
+            Client client = clients[i];
+            if (client.onPulse(NOW)) { clients[alive++] = client; }
+        }
+        // Clients that registered during this pulse were appended behind SIZE
+        final int ADDED = count - SIZE;
+        if (alive != SIZE) {
+            System.arraycopy(clients, SIZE, clients, alive, ADDED);
+            Arrays.fill(clients, alive + ADDED, count, null);
+            count = alive + ADDED;
+        }
+        if (0 == count) {
+            running = false;
+            animationTimer.stop();
+        }
+    }
+
+
+    // ******************** Inner Classes *************************************
+    @FunctionalInterface
+    interface Client {
+        /**
+         * Called once per pulse with the nanoTime read at the begin of the pulse.
+         * @return true to stay registered, false to be removed from the engine
+         */
+        boolean onPulse(final long NOW);
+    }
+}
@@ -18,22 +18,117 @@ package eu.hansolo.fx.timer;
 
 public class TimerEvent {
     public enum Type {
-        STARTED, STOPPED, CONTINUED, FINISHED, RESET, WAITING, SECOND
+        STARTED, STOPPED, CONTINUED, FINISHED, RESET, WAITING, SECOND, TICK, PHASE_CHANGED, DURATION_CHANGED
     }
 
-    private final Timer timer;
-    private final Type  type;
+    private final TimerModel model;
+    private final Type       type;
+    private       long       timestamp;
+    private       long       elapsedNanos;
+    private       long       remainingNanos;
+    private       double     progress;
+    private       long       driftNanos;
+    private       long       tickIndex;
+    private       int        phaseIndex;
+    private       int        definitionIndex;
+    private       int        repetition;
 
 
     // ******************** Constructor ***************************************
     public TimerEvent(final Timer TIMER, final Type TYPE) {
-        timer = TIMER;
+        this(TIMER.getModel(), TYPE);
+    }
+    public TimerEvent(final TimerModel MODEL, final Type TYPE) {
+        model = MODEL;
         type  = TYPE;
     }
 
 
     // ******************** Methods *******************************************
-    public Timer getTimer() { return timer; }
+    /**
+     * Use getModel() in environments without JavaFX on the classpath.
+     * @return the Timer control that fired the event or null if the model runs headless
+     */
+    public Timer getTimer() { return model.getView(); }
+
+    public TimerModel getModel() { return model; }
 
     public Type getType() { return type; }
+
+    /**
+     * @return the System.nanoTime() at which the event has been fired
+     */
+    public long getTimestamp() { return timestamp; }
+
+    /**
+     * For SECOND, TICK and FINISHED events this is the elapsed time of the
+     * boundary the event stands for, e.g. exactly 3 s for the third SECOND.
+     * @return the elapsed time of the timer in nanoseconds
+     */
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    /**
+     * @return the remaining time of the timer in nanoseconds
+     */
+    public long getRemainingNanos() { return remainingNanos; }
+
+    /**
+     * @return the progress of the timer in the range 0 - 1
+     */
+    public double getProgress() { return progress; }
+
+    /**
+     * @return the nanoseconds between the boundary of a SECOND, TICK or FINISHED event and its delivery
+     */
+    public long getDriftNanos() { return driftNanos; }
+
+    void set(final long TIMESTAMP, final long ELAPSED_NANOS, final long REMAINING_NANOS, final double PROGRESS, final long DRIFT_NANOS) {
+        timestamp      = TIMESTAMP;
+        elapsedNanos   = ELAPSED_NANOS;
+        remainingNanos = REMAINING_NANOS;
+        progress       = PROGRESS;
+        driftNanos     = DRIFT_NANOS;
+    }
+
+    /**
+     * @return the index of the tick interval for TICK events, starting at 1
+     */
+    public long getTickIndex() { return tickIndex; }
+    void setTickIndex(final long INDEX) { tickIndex = INDEX; }
+
+    /**
+     * @return the position of the phase that has been entered for PHASE_CHANGED events,
+     *         every repetition of a phase has its own position (see TimerProgram)
+     */
+    public int getPhaseIndex() { return phaseIndex; }
+
+    /**
+     * @return the index of the phase() call that added the phase that has been entered for PHASE_CHANGED events
+     */
+    public int getDefinitionIndex() { return definitionIndex; }
+
+    /**
+     * @return the round of the repeat() group of the phase that has been entered for PHASE_CHANGED events, starting at 0
+     */
+    public int getRepetition() { return repetition; }
+
+    void setPhase(final int INDEX, final int DEFINITION_INDEX, final int REPETITION) {
+        phaseIndex      = INDEX;
+        definitionIndex = DEFINITION_INDEX;
+        repetition      = REPETITION;
+    }
+
+    /**
+     * The model fires a new event every time, but events that are fired
+     * with fireTimerEvent() might be reused by their sender, so a listener
+     * that keeps such an event beyond the onTimerEvent() call has to keep a copy of it.
+     * @return a copy of this event
+     */
+    public TimerEvent copy() {
+        final TimerEvent COPY = new TimerEvent(model, type);
+        COPY.set(timestamp, elapsedNanos, remainingNanos, progress, driftNanos);
+        COPY.tickIndex = tickIndex;
+        COPY.setPhase(phaseIndex, definitionIndex, repetition);
+        return COPY;
+    }
 }
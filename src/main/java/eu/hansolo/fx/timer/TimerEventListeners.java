@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.TimerEvent.Type;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * Listener registry of a TimerModel that is indexed by event type.
+ * Every listener is only registered for the types it subscribed to, so
+ * firing an event only touches the interested listeners. Adding and
+ * removing copy the listener arrays of the subscribed types only, the
+ * arrays of other types and the dispatch are not affected.
+ * Registration is thread safe, the dispatch itself doesn't lock.
+ */
+final class TimerEventListeners {
+    private static final TimerEventListener[]                       EMPTY = new TimerEventListener[0];
+    private static final Type[]                                     TYPES = Type.values();
+    private        final Map<TimerEventListener, Subscription>      subscriptions;
+    private        final AtomicReferenceArray<TimerEventListener[]> snapshots;
+
+
+    // ******************** Constructors **************************************
+    TimerEventListeners() {
+        subscriptions = new HashMap<>(4);
+        snapshots     = new AtomicReferenceArray<>(TYPES.length);
+        for (int i = 0 ; i < TYPES.length ; i++) { snapshots.set(i, EMPTY); }
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Registers the listener for the given types, an existing subscription
+     * of the same listener will be replaced.
+     * @param KEY the listener that is used to remove the subscription again
+     * @param LISTENER the listener that will be informed, either KEY or a wrapper of it
+     */
+    synchronized void add(final TimerEventListener KEY, final TimerEventListener LISTENER, final Set<Type> TYPES) {
+        remove(KEY);
+        final EnumSet<Type> TYPE_SET = TYPES.isEmpty() ? EnumSet.noneOf(Type.class) : EnumSet.copyOf(TYPES);
+        subscriptions.put(KEY, new Subscription(LISTENER, TYPE_SET));
+        for (Type type : TYPE_SET) {
+            final TimerEventListener[] LISTENERS = snapshots.get(type.ordinal());
+            final TimerEventListener[] ADDED     = Arrays.copyOf(LISTENERS, LISTENERS.length + 1);
+            ADDED[LISTENERS.length] = LISTENER;
+            snapshots.set(type.ordinal(), ADDED);
+        }
+    }
+
+    synchronized void remove(final TimerEventListener KEY) {
+        final Subscription SUBSCRIPTION = subscriptions.remove(KEY);
+        if (null == SUBSCRIPTION) { return; }
+        for (Type type : SUBSCRIPTION.types) {
+            final TimerEventListener[] LISTENERS = snapshots.get(type.ordinal());
+            for (int i = 0 ; i < LISTENERS.length ; i++) {
+                if (LISTENERS[i] != SUBSCRIPTION.listener) { continue; }
+                final TimerEventListener[] REMAINING = 1 == LISTENERS.length ? EMPTY : new TimerEventListener[LISTENERS.length - 1];
+                System.arraycopy(LISTENERS, 0, REMAINING, 0, i);
+                System.arraycopy(LISTENERS, i + 1, REMAINING, i, REMAINING.length - i);
+                snapshots.set(type.ordinal(), REMAINING);
+                break;
+            }
+        }
+    }
+
+    synchronized int size() { return subscriptions.size(); }
+
+    /**
+     * @return the listeners that subscribed to the given type in the order of their registration
+     */
+    TimerEventListener[] get(final Type TYPE) { return snapshots.get(TYPE.ordinal()); }
+
+
+    // ******************** Inner Classes *************************************
+    private static final class Subscription {
+        private final TimerEventListener listener;
+        private final EnumSet<Type>      types;
+
+
+        Subscription(final TimerEventListener LISTENER, final EnumSet<Type> TYPES) {
+            listener = LISTENER;
+            types    = TYPES;
+        }
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import eu.hansolo.fx.timer.TimerEvent.Type;
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.BooleanPropertyBase;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.DoublePropertyBase;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ObjectPropertyBase;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.ArcType;
+import javafx.scene.shape.StrokeLineCap;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+
+/**
+ * Control that renders many timers into one Canvas.
+ * Each timer is represented by a TimerModel and painted with the same
+ * geometry as the Timer control, but without any scene graph nodes per
+ * timer. Clicks are mapped to the timer under the mouse which will be
+ * started, stopped or continued like a Timer control.
+ * The grid is driven by the shared TimerEngine and only repaints while
+ * at least one of its timers is running or waiting.
+ */
+public class TimerGrid extends Region {
+    private static final double                     PREFERRED_WIDTH  = 250;
+    private static final double                     PREFERRED_HEIGHT = 250;
+    private static final double                     MINIMUM_WIDTH    = 19;
+    private static final double                     MINIMUM_HEIGHT   = 19;
+    private static final double                     MAXIMUM_WIDTH    = 4096;
+    private static final double                     MAXIMUM_HEIGHT   = 4096;
+    private static final double                     MINIMUM_CELL     = 19;
+    private static final Set<Type>                  STATE_CHANGES    = EnumSet.of(Type.STARTED, Type.STOPPED, Type.CONTINUED, Type.FINISHED, Type.RESET, Type.WAITING);
+    private        final ObservableList<TimerModel> models;
+    private        final TimerEventListener         modelListener;
+    private              Canvas                     canvas;
+    private              GraphicsContext            ctx;
+    private              double                     width;
+    private              double                     height;
+    private              int                        columns;
+    private        final double[]                   playXs;
+    private        final double[]                   playYs;
+    private              boolean                    engineRegistered;
+    private              double                     _cellSize;
+    private              DoubleProperty             cellSize;
+    private              double                     _spacing;
+    private              DoubleProperty             spacing;
+    private              Color                      _backgroundColor;
+    private              ObjectProperty<Color>      backgroundColor;
+    private              Color                      _color;
+    private              ObjectProperty<Color>      color;
+    private              Color                      _waitingColor;
+    private              ObjectProperty<Color>      waitingColor;
+    private              boolean                    _playButtonVisible;
+    private              BooleanProperty            playButtonVisible;
+
+
+    // ******************** Constructors **************************************
+    public TimerGrid() {
+        models             = FXCollections.observableArrayList();
+        modelListener      = e -> { if (Platform.isFxApplicationThread()) { redraw(); } else { Platform.runLater(this::redraw); } };
+        engineRegistered   = false;
+        playXs             = new double[3];
+        playYs             = new double[3];
+        _cellSize          = MINIMUM_CELL;
+        _spacing           = 5;
+        _backgroundColor   = Color.TRANSPARENT;
+        _color             = Timer.DEFAULT_COLOR;
+        _waitingColor      = Timer.DEFAULT_COLOR;
+        _playButtonVisible = true;
+        initGraphics();
+        registerListeners();
+    }
+
+
+    // ******************** Initialization ************************************
+    private void initGraphics() {
+        if (Double.compare(getPrefWidth(), 0.0) <= 0 || Double.compare(getPrefHeight(), 0.0) <= 0 || Double.compare(getWidth(), 0.0) <= 0 ||
+            Double.compare(getHeight(), 0.0) <= 0) {
+            if (getPrefWidth() > 0 && getPrefHeight() > 0) {
+                setPrefSize(getPrefWidth(), getPrefHeight());
+            } else {
+                setPrefSize(PREFERRED_WIDTH, PREFERRED_HEIGHT);
+            }
+        }
+
+        getStyleClass().add("timer-grid");
+
+        canvas = new Canvas(PREFERRED_WIDTH, PREFERRED_HEIGHT);
+        ctx    = canvas.getGraphicsContext2D();
+        ctx.setLineCap(StrokeLineCap.BUTT);
+
+        getChildren().setAll(canvas);
+    }
+
+    private void registerListeners() {
+        widthProperty().addListener(o -> resize());
+        heightProperty().addListener(o -> resize());
+        models.addListener((ListChangeListener<TimerModel>) c -> {
+            while (c.next()) {
+                for (TimerModel model : c.getRemoved()) { model.removeTimerEventListener(modelListener); }
+                for (TimerModel model : c.getAddedSubList()) { model.addTimerEventListener(STATE_CHANGES, modelListener); }
+            }
+            redraw();
+        });
+        canvas.setOnMousePressed(event -> {
+            final int INDEX = getIndexAt(event.getX(), event.getY());
+            if (INDEX < 0) { return; }
+            final TimerModel MODEL = models.get(INDEX);
+            switch(MODEL.getState()) {
+                case RUNNING: MODEL.stop();break;
+                case STOPPED: if (MODEL.getElapsedNanos() > 0) { MODEL.startFromCurrent(); } else { MODEL.start(); } break;
+                case WAITING: MODEL.stop();break;
+            }
+        });
+    }
+
+
+    // ******************** Methods *******************************************
+    @Override protected double computeMinWidth(final double HEIGHT) { return MINIMUM_WIDTH; }
+    @Override protected double computeMinHeight(final double WIDTH) { return MINIMUM_HEIGHT; }
+    @Override protected double computePrefWidth(final double HEIGHT) { return super.computePrefWidth(HEIGHT); }
+    @Override protected double computePrefHeight(final double WIDTH) { return super.computePrefHeight(WIDTH); }
+    @Override protected double computeMaxWidth(final double HEIGHT) { return MAXIMUM_WIDTH; }
+    @Override protected double computeMaxHeight(final double WIDTH) { return MAXIMUM_HEIGHT; }
+
+    /**
+     * @return the models of the timers that are shown in this grid
+     */
+    public ObservableList<TimerModel> getModels() { return models; }
+
+    public double getCellSize() { return null == cellSize ? _cellSize : cellSize.get(); }
+    public void setCellSize(final double SIZE) {
+        if (null == cellSize) {
+            _cellSize = Math.max(MINIMUM_CELL, SIZE);
+            resize();
+        } else {
+            cellSize.set(SIZE);
+        }
+    }
+    public DoubleProperty cellSizeProperty() {
+        if (null == cellSize) {
+            cellSize = new DoublePropertyBase(_cellSize) {
+                @Override protected void invalidated() {
+                    if (get() < MINIMUM_CELL) { set(MINIMUM_CELL); }
+                    resize();
+                }
+                @Override public Object getBean() { return TimerGrid.this; }
+                @Override public String getName() { return "cellSize"; }
+            };
+        }
+        return cellSize;
+    }
+
+    public double getSpacing() { return null == spacing ? _spacing : spacing.get(); }
+    public void setSpacing(final double SPACING) {
+        if (null == spacing) {
+            _spacing = Math.max(0, SPACING);
+            resize();
+        } else {
+            spacing.set(SPACING);
+        }
+    }
+    public DoubleProperty spacingProperty() {
+        if (null == spacing) {
+            spacing = new DoublePropertyBase(_spacing) {
+                @Override protected void invalidated() {
+                    if (get() < 0) { set(0); }
+                    resize();
+                }
+                @Override public Object getBean() { return TimerGrid.this; }
+                @Override public String getName() { return "spacing"; }
+            };
+        }
+        return spacing;
+    }
+
+    public Color getBackgroundColor() { return null == backgroundColor ? _backgroundColor : backgroundColor.get(); }
+    public void setBackgroundColor(final Color COLOR) {
+        if (null == backgroundColor) {
+            _backgroundColor = COLOR;
+            redraw();
+        } else {
+            backgroundColor.set(COLOR);
+        }
+    }
+    public ObjectProperty<Color> backgroundColorProperty() {
+        if (null == backgroundColor) {
+            backgroundColor = new ObjectPropertyBase<Color>(_backgroundColor) {
+                @Override protected void invalidated() { redraw(); }
+                @Override public Object getBean() { return TimerGrid.this; }
+                @Override public String getName() { return "backgroundColor"; }
+            };
+            _backgroundColor = null;
+        }
+        return backgroundColor;
+    }
+
+    public Color getColor() { return null == color ? _color : color.get(); }
+    public void setColor(final Color COLOR) {
+        if (null == color) {
+            _color = COLOR;
+            redraw();
+        } else {
+            color.set(COLOR);
+        }
+    }
+    public ObjectProperty<Color> colorProperty() {
+        if (null == color) {
+            color = new ObjectPropertyBase<Color>(_color) {
+                @Override protected void invalidated() { redraw(); }
+                @Override public Object getBean() { return TimerGrid.this; }
+                @Override public String getName() { return "color"; }
+            };
+            _color = null;
+        }
+        return color;
+    }
+
+    public Color getWaitingColor() { return null == waitingColor ? _waitingColor : waitingColor.get(); }
+    public void setWaitingColor(final Color COLOR) {
+        if (null == waitingColor) {
+            _waitingColor = COLOR;
+            redraw();
+        } else {
+            waitingColor.set(COLOR);
+        }
+    }
+    public ObjectProperty<Color> waitingColorProperty() {
+        if (null == waitingColor) {
+            waitingColor = new ObjectPropertyBase<Color>(_waitingColor) {
+                @Override protected void invalidated() { redraw(); }
+                @Override public Object getBean() { return TimerGrid.this; }
+                @Override public String getName() { return "waitingColor"; }
+            };
+            _waitingColor = null;
+        }
+        return waitingColor;
+    }
+
+    public boolean isPlayButtonVisible() { return null == playButtonVisible ? _playButtonVisible : playButtonVisible.get(); }
+    public void setPlayButtonVisible(final boolean VISIBLE) {
+        if (null == playButtonVisible) {
+            _playButtonVisible = VISIBLE;
+            redraw();
+        } else {
+            playButtonVisible.set(VISIBLE);
+        }
+    }
+    public BooleanProperty playButtonVisibleProperty() {
+        if (null == playButtonVisible) {
+            playButtonVisible = new BooleanPropertyBase(_playButtonVisible) {
+                @Override protected void invalidated() { redraw(); }
+                @Override public Object getBean() { return TimerGrid.this; }
+                @Override public String getName() { return "playButtonVisible"; }
+            };
+        }
+        return playButtonVisible;
+    }
+
+    /**
+     * Returns the index of the timer at the given position relative to the content area of the grid.
+     * Only the round area of a timer counts as a hit, like the ring of the Timer control.
+     * @return the index of the timer in getModels() or -1 if there is no timer at the position
+     */
+    public int getIndexAt(final double X, final double Y) {
+        if (0 == columns || X < 0 || Y < 0) { return -1; }
+        final double SIZE   = getCellSize();
+        final double STEP   = SIZE + getSpacing();
+        final int    COLUMN = (int) (X / STEP);
+        final int    ROW    = (int) (Y / STEP);
+        if (COLUMN >= columns) { return -1; }
+        final int INDEX = ROW * columns + COLUMN;
+        if (INDEX >= models.size()) { return -1; }
+        final double DX = X - COLUMN * STEP - SIZE * 0.5;
+        final double DY = Y - ROW * STEP - SIZE * 0.5;
+        return DX * DX + DY * DY <= SIZE * SIZE * 0.25 ? INDEX : -1;
+    }
+
+    /**
+     * Schedules a repaint of the canvas with the next pulse.
+     */
+    public void redraw() {
+        if (!engineRegistered) {
+            engineRegistered = true;
+            TimerEngine.getInstance().add(this::onPulse);
+        }
+    }
+
+    private boolean onPulse(final long NOW) {
+        boolean active = false;
+        // Might fire SECOND and FINISHED events, models with their own TimerClock are updated to their own time
+        for (int i = 0, n = models.size() ; i < n ; i++) {
+            final TimerModel MODEL = models.get(i);
+            active |= MODEL.update(MODEL.time(NOW));
+        }
+        draw(NOW);
+        engineRegistered = active;
+        return active;
+    }
+
+    private void draw(final long NOW) {
+        ctx.clearRect(0, 0, width, height);
+        if (0 == columns) { return; }
+
+        final double         SIZE               = getCellSize();
+        final double         STEP               = SIZE + getSpacing();
+        final Color          BACKGROUND_COLOR   = getBackgroundColor();
+        final Color          COLOR              = getColor();
+        final Color          WAITING_COLOR      = getWaitingColor();
+        final boolean        PLAY_BUTTON        = isPlayButtonVisible();
+        // Same geometry as the Timer control, the ring of the Timer is stroked inside its bounds
+        final Timer.Geometry GEOMETRY           = Timer.Geometry.of(SIZE);
+        final double         RING_WIDTH         = GEOMETRY.ringStrokeWidth;
+        final double         RING_INSET         = RING_WIDTH * 0.5;
+        final double         RING_SIZE          = SIZE - RING_WIDTH;
+        final double         BAR_WIDTH          = GEOMETRY.progressStrokeWidth;
+        final double         BAR_RADIUS         = GEOMETRY.progressRadius;
+        final double         BAR_INSET          = GEOMETRY.center - BAR_RADIUS;
+        final double         BUTTON_SIZE        = GEOMETRY.stopButtonSize;
+        final double         BUTTON_INSET       = GEOMETRY.stopButtonXY;
+        final double         PLAY_X1            = GEOMETRY.playButtonX1;
+        final double         PLAY_X2            = GEOMETRY.playButtonX2;
+        final double         PLAY_Y1            = GEOMETRY.playButtonY1;
+        final double         PLAY_Y2            = GEOMETRY.center;
+        final double         PLAY_Y3            = GEOMETRY.playButtonY3;
+        final double         MAX_Y              = height;
+        // All waiting spinners share the phase of the Timer controls
+        final double         SPINNER_ANGLE      = TimerEngine.spinnerAngle(NOW, 0);
+
+        for (int i = 0, n = models.size() ; i < n ; i++) {
+            final double X = (i % columns) * STEP;
+            final double Y = (i / columns) * STEP;
+            if (Y > MAX_Y) { break; }
+            final TimerModel MODEL = models.get(i);
+            final State      STATE = MODEL.getState();
+            final long       TIME  = MODEL.time(NOW);
+
+            // Ring
+            if (BACKGROUND_COLOR.getOpacity() > 0) {
+                ctx.setFill(BACKGROUND_COLOR);
+                ctx.fillOval(X, Y, SIZE, SIZE);
+            }
+            ctx.setLineWidth(RING_WIDTH);
+            if (State.WAITING == STATE) {
+                ctx.setStroke(WAITING_COLOR);
+                ctx.strokeArc(X + RING_INSET, Y + RING_INSET, RING_SIZE, RING_SIZE, -SPINNER_ANGLE, 300, ArcType.OPEN);
+            } else {
+                ctx.setStroke(COLOR);
+                ctx.strokeOval(X + RING_INSET, Y + RING_INSET, RING_SIZE, RING_SIZE);
+            }
+
+            // Progress
+            if (State.WAITING != STATE && MODEL.getElapsedNanos(TIME) > 0) {
+                ctx.setLineWidth(BAR_WIDTH);
+                ctx.setStroke(COLOR);
+                ctx.strokeArc(X + BAR_INSET, Y + BAR_INSET, BAR_RADIUS * 2, BAR_RADIUS * 2, 90, -360.0 * MODEL.getProgress(TIME), ArcType.OPEN);
+            }
+
+            // Buttons
+            if (State.STOPPED == STATE) {
+                if (PLAY_BUTTON) {
+                    playXs[0] = X + PLAY_X1; playYs[0] = Y + PLAY_Y1;
+                    playXs[1] = X + PLAY_X2; playYs[1] = Y + PLAY_Y2;
+                    playXs[2] = X + PLAY_X1; playYs[2] = Y + PLAY_Y3;
+                    ctx.setFill(COLOR);
+                    ctx.fillPolygon(playXs, playYs, 3);
+                }
+            } else {
+                ctx.setFill(State.WAITING == STATE ? WAITING_COLOR : COLOR);
+                ctx.fillRect(X + BUTTON_INSET, Y + BUTTON_INSET, BUTTON_SIZE, BUTTON_SIZE);
+            }
+        }
+    }
+
+
+    // ******************** Resizing ******************************************
+    private void resize() {
+        width  = getWidth() - getInsets().getLeft() - getInsets().getRight();
+        height = getHeight() - getInsets().getTop() - getInsets().getBottom();
+
+        if (width > 0 && height > 0) {
+            final double STEP = getCellSize() + getSpacing();
+            columns = Math.max(1, (int) ((width + getSpacing()) / STEP));
+
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            canvas.relocate(getInsets().getLeft(), getInsets().getTop());
+
+            redraw();
+        } else {
+            columns = 0;
+        }
+    }
+}
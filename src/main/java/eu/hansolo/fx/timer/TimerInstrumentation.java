@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import eu.hansolo.fx.timer.TimerStatistics.ModelReference;
+
+
+/**
+ * Hooks that are called by the timers if the instrumentation is enabled
+ * with -Deu.hansolo.fx.timer.instrumentation=true. Every call site checks
+ * the static final ENABLED flag, so the JIT removes the instrumentation
+ * completely if it is disabled.
+ * If the JVM supports the Flight Recorder the transitions, listener calls
+ * and render passes are also emitted as JFR events. The events are part
+ * of the optional jfr source set and are loaded by name, see TimerJfrEvents.
+ */
+final class TimerInstrumentation {
+            static final boolean         ENABLED    = Boolean.getBoolean("eu.hansolo.fx.timer.instrumentation");
+    private static final FlightRecorder  JFR        = ENABLED ? loadFlightRecorder() : null;
+    private static final TimerStatistics STATISTICS = ENABLED ? TimerStatistics.getInstance() : null;
+
+    static {
+        if (ENABLED) { TimerStatistics.register(); }
+    }
+
+
+    // ******************** Constructors **************************************
+    private TimerInstrumentation() {}
+
+
+    // ******************** Methods *******************************************
+    static ModelReference created(final TimerModel MODEL) { return STATISTICS.created(MODEL); }
+
+    static void stateChanged(final ModelReference REFERENCE, final State OLD_STATE, final State NEW_STATE) {
+        STATISTICS.stateChanged(REFERENCE, OLD_STATE, NEW_STATE);
+    }
+
+    static void fired(final TimerEvent EVENT) {
+        STATISTICS.fired(EVENT);
+        if (null != JFR) { JFR.transition(EVENT); }
+    }
+
+    /**
+     * Calls the given listeners and measures the time each of them takes.
+     */
+    static void dispatch(final TimerEvent EVENT, final TimerEventListener[] LISTENERS) {
+        for (TimerEventListener listener : LISTENERS) {
+            final long START = System.nanoTime();
+            if (null != JFR) { JFR.listener(EVENT, listener); } else { listener.onTimerEvent(EVENT); }
+            STATISTICS.listenerTime(listener, System.nanoTime() - START);
+        }
+    }
+
+    /**
+     * Runs the given render pass of a Timer and records its duration.
+     */
+    static void render(final String OPERATION, final Runnable PASS) {
+        if (null != JFR) { JFR.render(OPERATION, PASS); } else { PASS.run(); }
+    }
+
+    // Returns null if the JVM has no Flight Recorder or the jfr source set is not on the classpath
+    private static FlightRecorder loadFlightRecorder() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (FlightRecorder) Class.forName("eu.hansolo.fx.timer.TimerJfrEvents").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+
+    // ******************** Inner Classes *************************************
+    interface FlightRecorder {
+        void transition(final TimerEvent EVENT);
+
+        void listener(final TimerEvent EVENT, final TimerEventListener LISTENER);
+
+        void render(final String OPERATION, final Runnable PASS);
+    }
+}
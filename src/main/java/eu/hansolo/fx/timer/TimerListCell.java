@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.ListCell;
+import javafx.util.StringConverter;
+
+
+/**
+ * ListCell that shows a TimerModel with a Timer control.
+ * The ListView only creates as many cells as rows are visible and reuses
+ * them while scrolling, every cell owns one Timer that is rebound to the
+ * model of the row it currently shows. An empty cell binds its Timer to
+ * an idle model so that it doesn't keep a reference to a running one.
+ */
+public class TimerListCell extends ListCell<TimerModel> {
+    private final Timer                       timer;
+    private final TimerModel                  idle;
+    private final StringConverter<TimerModel> converter;
+
+
+    // ******************** Constructors **************************************
+    public TimerListCell() {
+        this(null);
+    }
+    /**
+     * @param CONVERTER creates the text that is shown next to the timer, null to only show the timer
+     */
+    public TimerListCell(final StringConverter<TimerModel> CONVERTER) {
+        idle      = new TimerModel();
+        timer     = new Timer(idle);
+        converter = CONVERTER;
+        setContentDisplay(null == CONVERTER ? ContentDisplay.GRAPHIC_ONLY : ContentDisplay.LEFT);
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * @return the pooled Timer of this cell, e.g. to style it
+     */
+    public Timer getTimer() { return timer; }
+
+    @Override protected void updateItem(final TimerModel MODEL, final boolean EMPTY) {
+        super.updateItem(MODEL, EMPTY);
+        if (EMPTY || null == MODEL) {
+            timer.setModel(idle);
+            setText(null);
+            setGraphic(null);
+        } else {
+            timer.setModel(MODEL);
+            setText(null == converter ? null : converter.toString(MODEL));
+            setGraphic(timer);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import javafx.beans.value.ChangeListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.control.ListView;
+
+
+/**
+ * Virtualized list of timers.
+ * The items are lightweight TimerModels, only the visible rows are shown
+ * with a Timer control that is pooled in a TimerListCell and rebound to
+ * another model while scrolling. All items are attached to a TimingWheel
+ * that is pulsed by the shared TimerEngine, so the models of rows that
+ * are not visible keep firing their SECOND, TICK and FINISHED events and
+ * don't cost more than their timing state. The wheel is only pulsed while
+ * at least one model is running.
+ * The items must be used on the FX application thread and with the
+ * FRAME precision.
+ */
+public class TimerListView extends ListView<TimerModel> {
+    private final TimingWheel                                wheel;
+    private final ListChangeListener<TimerModel>             itemsListener;
+    private final ChangeListener<ObservableList<TimerModel>> itemsPropertyListener;
+    private       boolean                                    engineRegistered;
+
+
+    // ******************** Constructors **************************************
+    public TimerListView() {
+        this(FXCollections.observableArrayList());
+    }
+    public TimerListView(final ObservableList<TimerModel> ITEMS) {
+        super(ITEMS);
+        wheel                 = new TimingWheel();
+        engineRegistered      = false;
+        itemsListener         = change -> {
+            while (change.next()) {
+                for (TimerModel model : change.getRemoved()) { wheel.remove(model); }
+                for (TimerModel model : change.getAddedSubList()) { wheel.add(model); }
+            }
+        };
+        itemsPropertyListener = (o, ov, nv) -> {
+            if (null != ov) {
+                ov.removeListener(itemsListener);
+                for (TimerModel model : ov) { wheel.remove(model); }
+            }
+            if (null != nv) { attach(nv); }
+        };
+        getStyleClass().add("timer-list-view");
+        setCellFactory(listView -> new TimerListCell());
+        wheel.setOnScheduled(this::play);
+        itemsProperty().addListener(itemsPropertyListener);
+        if (null != ITEMS) { attach(ITEMS); }
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * @return the wheel that drives the models of this list
+     */
+    public TimingWheel getTimingWheel() { return wheel; }
+
+    private void attach(final ObservableList<TimerModel> ITEMS) {
+        for (TimerModel model : ITEMS) { wheel.add(model); }
+        ITEMS.addListener(itemsListener);
+    }
+
+    private void play() {
+        if (!engineRegistered) {
+            engineRegistered = true;
+            TimerEngine.getInstance().add(this::onPulse);
+        }
+    }
+
+    private boolean onPulse(final long NOW) {
+        wheel.advance(NOW);
+        // Waiting models have no deadline and are animated by their Timer
+        engineRegistered = wheel.getScheduledCount() > 0;
+        return engineRegistered;
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import eu.hansolo.fx.timer.TimerEvent.Type;
+import eu.hansolo.fx.timer.TimerStatistics.ModelReference;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+
+/**
+ * Toolkit free countdown state of a timer.
+ * Contains the state machine, the elapsed/remaining time based on a
+ * monotonic TimerClock (System.nanoTime() by default) and the event
+ * dispatch. The model doesn't depend on JavaFX and can be used headless,
+ * e.g. on a server or in plain unit tests, by calling update() periodically.
+ * A Timer control is a view on top of a TimerModel. A model can be shown
+ * by several Timers at once, e.g. by a pooled list cell and by the cell
+ * the list uses to measure its rows, every bound Timer is informed.
+ * The state is guarded by the monitor of the model because in precision
+ * mode the deadline events are fired by the PrecisionScheduler thread.
+ * Events are fired after the monitor has been released, so a slow listener
+ * on one thread never blocks update() or the control methods on another.
+ * Apart from that the model should be confined to one thread.
+ */
+public class TimerModel {
+    /**
+     * FRAME fires all events when update() is called, e.g. with the next FX pulse.
+     * FINISHED fires the FINISHED event exactly at its deadline on the PrecisionScheduler thread.
+     * ALL fires PHASE_CHANGED, SECOND, TICK and FINISHED events exactly at their deadline on the PrecisionScheduler thread.
+     */
+    public  enum         Precision { FRAME, FINISHED, ALL }
+    public  static final long                     NANOS_PER_SECOND = 1_000_000_000L;
+    public  static final long                     DEFAULT_DURATION = 10 * NANOS_PER_SECOND;
+    private volatile     Timer[]                  views;
+    private volatile     State                    state;
+    private              Precision                precision;
+    private volatile     TimerClock               clock;
+    private              long                     preciseDeadline;
+    private              long                     durationNanos;
+    private              long                     startNanos;
+    private              long                     currentNanos;
+    private              long                     nextSecondNanos;
+    private              long                     tickIntervalNanos;
+    private              long                     nextTickNanos;
+    private              TimerProgram             program;
+    private              long                     nextPhaseNanos;
+    private volatile     TimerEventListeners      listeners;
+                         TimingWheel.Entry        wheelEntry;
+    private        final ModelReference           statisticsReference;
+
+
+    // ******************** Constructors **************************************
+    public TimerModel() {
+        state           = State.STOPPED;
+        precision       = Precision.FRAME;
+        clock           = TimerClock.SYSTEM;
+        preciseDeadline = Long.MAX_VALUE;
+        durationNanos   = DEFAULT_DURATION;
+        currentNanos    = 0;
+        nextPhaseNanos  = Long.MAX_VALUE;
+        // Tracks the state of the model in the statistics until it is garbage collected
+        statisticsReference = TimerInstrumentation.ENABLED ? TimerInstrumentation.created(TimerModel.this) : null;
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * @return the Timer control that has been bound to this model last or null if the model runs headless
+     */
+    public Timer getView() {
+        final Timer[] VIEWS = views;
+        return null == VIEWS ? null : VIEWS[VIEWS.length - 1];
+    }
+
+    // Called by a Timer that binds this model, the array is copied on write because events are fired without locking
+    synchronized void addView(final Timer VIEW) {
+        if (null == views) {
+            views = new Timer[] { VIEW };
+            return;
+        }
+        for (Timer view : views) { if (view == VIEW) { return; } }
+        final Timer[] VIEWS = Arrays.copyOf(views, views.length + 1);
+        VIEWS[VIEWS.length - 1] = VIEW;
+        views = VIEWS;
+    }
+
+    // Called by a Timer that is bound to another model, a headless model has no views array so that it never loads JavaFX
+    synchronized void removeView(final Timer VIEW) {
+        if (null == views) { return; }
+        for (int i = 0 ; i < views.length ; i++) {
+            if (views[i] != VIEW) { continue; }
+            if (1 == views.length) {
+                views = null;
+                return;
+            }
+            final Timer[] VIEWS = new Timer[views.length - 1];
+            System.arraycopy(views, 0, VIEWS, 0, i);
+            System.arraycopy(views, i + 1, VIEWS, i, VIEWS.length - i);
+            views = VIEWS;
+            return;
+        }
+    }
+
+    public State getState() { return state; }
+
+    public synchronized Precision getPrecision() { return precision; }
+    /**
+     * In precision mode the deadline events are fired on the PrecisionScheduler
+     * thread at their exact deadline while the progress can still be updated
+     * with the FX pulse. Listeners have to take care of threading in this mode.
+     * Models in precision mode must not be attached to a TimingWheel.
+     * The precision mode only applies to models with the SYSTEM clock.
+     */
+    public synchronized void setPrecision(final Precision PRECISION) {
+        precision = null == PRECISION ? Precision.FRAME : PRECISION;
+        scheduleNext();
+    }
+
+    public TimerClock getClock() { return clock; }
+    /**
+     * Defines the clock that drives the model, e.g. a scaled clock to let a
+     * countdown pass faster or a ManualTimerClock for deterministic tests.
+     * A running or waiting model continues at its current elapsed time.
+     * Models with another clock than SYSTEM fire all their events in update().
+     * @param CLOCK the clock or null for the SYSTEM clock
+     */
+    public synchronized void setClock(final TimerClock CLOCK) {
+        final long ELAPSED = getElapsedNanos();
+        clock = null == CLOCK ? TimerClock.SYSTEM : CLOCK;
+        if (State.STOPPED != state) {
+            currentNanos = ELAPSED;
+            play(clock.nanoTime());
+        }
+        scheduleNext();
+    }
+
+    public long getDurationNanos() { return durationNanos; }
+    /**
+     * Fires a DURATION_CHANGED event, also if the duration stays the same
+     * but a program has been removed.
+     */
+    public void setDurationNanos(final long DURATION_NANOS) {
+        if (DURATION_NANOS < 0) { throw new IllegalArgumentException("Duration cannot be negative"); }
+        final TimerEvent EVENT;
+        synchronized (this) {
+            durationNanos = DURATION_NANOS;
+            clearProgram();
+            scheduleNext();
+            EVENT = durationChanged();
+        }
+        fireTimerEvent(EVENT);
+    }
+
+    public synchronized TimerProgram getProgram() { return program; }
+    /**
+     * Plays the given program, the duration of the model becomes the
+     * duration of the program and a PHASE_CHANGED event is fired whenever
+     * the next phase is entered. Setting the duration removes the program.
+     * Fires a DURATION_CHANGED event.
+     * @param PROGRAM the program or null to use a plain countdown again
+     */
+    public void setProgram(final TimerProgram PROGRAM) {
+        final TimerEvent EVENT;
+        synchronized (this) {
+            program = PROGRAM;
+            if (null != PROGRAM) { durationNanos = PROGRAM.getDurationNanos(); }
+            nextPhaseNanos = State.RUNNING == state ? nextPhase(getElapsedNanos()) : Long.MAX_VALUE;
+            scheduleNext();
+            EVENT = durationChanged();
+        }
+        fireTimerEvent(EVENT);
+    }
+
+    /**
+     * @return the position of the phase of the program at the current time or 0 without program,
+     *         every repetition of a phase has its own position (see TimerProgram)
+     */
+    public int getPhaseIndex() { return getPhaseIndex(clock.nanoTime()); }
+    public synchronized int getPhaseIndex(final long NOW) { return null == program ? 0 : program.getPhaseIndex(getElapsedNanos(NOW)); }
+
+    /**
+     * @return the progress of the current phase of the program in the range 0 - 1, without program the progress of the timer
+     */
+    public double getPhaseProgress() { return getPhaseProgress(clock.nanoTime()); }
+    public synchronized double getPhaseProgress(final long NOW) {
+        if (null == program) { return getProgress(NOW); }
+        return State.WAITING == state ? 0 : program.getPhaseProgress(getElapsedNanos(NOW));
+    }
+
+    public long getTickIntervalNanos() { return tickIntervalNanos; }
+    /**
+     * Defines the interval of the TICK events, a value of 0 disables them.
+     * The first TICK is fired when the interval has elapsed the first time
+     * and carries the tick index 1.
+     */
+    public synchronized void setTickIntervalNanos(final long INTERVAL_NANOS) {
+        if (INTERVAL_NANOS < 0) { throw new IllegalArgumentException("Tick interval cannot be negative"); }
+        tickIntervalNanos = INTERVAL_NANOS;
+        if (State.STOPPED != state) { nextTickNanos = nextBoundary(getElapsedNanos(), tickIntervalNanos); }
+        scheduleNext();
+    }
+
+    public long getElapsedNanos() { return getElapsedNanos(clock.nanoTime()); }
+    public long getElapsedNanos(final long NOW) {
+        switch(state) {
+            case RUNNING: final long ELAPSED = NOW - startNanos; return ELAPSED < durationNanos ? ELAPSED : durationNanos;
+            case WAITING: return NOW - startNanos;
+            default     : return currentNanos;
+        }
+    }
+
+    public long getRemainingNanos() { return getRemainingNanos(clock.nanoTime()); }
+    public long getRemainingNanos(final long NOW) { return State.WAITING == state ? durationNanos : durationNanos - getElapsedNanos(NOW); }
+
+    public double getProgress() { return getProgress(clock.nanoTime()); }
+    public double getProgress(final long NOW) {
+        if (State.WAITING == state || 0 == durationNanos) { return 0; }
+        return (double) getElapsedNanos(NOW) / durationNanos;
+    }
+
+    public void start() {
+        final TimerEvent EVENT;
+        synchronized (this) {
+            final long NOW = clock.nanoTime();
+            currentNanos = 0;
+            play(NOW);
+            setState(State.RUNNING);
+            scheduleNext();
+            EVENT = event(Type.STARTED, NOW, 0, 0);
+        }
+        fireTimerEvent(EVENT);
+    }
+    public void startFromCurrent() {
+        final TimerEvent EVENT;
+        synchronized (this) {
+            final long NOW = clock.nanoTime();
+            play(NOW);
+            setState(State.RUNNING);
+            scheduleNext();
+            EVENT = event(Type.CONTINUED, NOW, currentNanos, 0);
+        }
+        fireTimerEvent(EVENT);
+    }
+    public void stop() {
+        final TimerEvent EVENT;
+        synchronized (this) {
+            final long NOW = clock.nanoTime();
+            currentNanos = State.RUNNING == state ? getElapsedNanos(NOW) : 0;
+            setState(State.STOPPED);
+            scheduleNext();
+            EVENT = event(Type.STOPPED, NOW, currentNanos, 0);
+        }
+        fireTimerEvent(EVENT);
+    }
+    public void reset() {
+        final TimerEvent EVENT;
+        synchronized (this) {
+            finished();
+            EVENT = event(Type.RESET, clock.nanoTime(), 0, 0);
+        }
+        fireTimerEvent(EVENT);
+    }
+    public void waiting() {
+        final TimerEvent EVENT;
+        synchronized (this) {
+            final long NOW = clock.nanoTime();
+            currentNanos = 0;
+            play(NOW);
+            setState(State.WAITING);
+            scheduleNext();
+            EVENT = event(Type.WAITING, NOW, 0, 0);
+        }
+        fireTimerEvent(EVENT);
+    }
+
+    /**
+     * Puts the model into the given state without going through start(),
+     * e.g. to restore a persisted timer. A running model continues at the
+     * given elapsed time, if that already exceeds the duration the FINISHED
+     * event will be fired with the next update. The SECOND and TICK events
+     * that have been missed are not fired.
+     * Fires CONTINUED, WAITING or STOPPED so that views and listeners get in
+     * sync, a stopped model without elapsed time fires no event.
+     */
+    public void restore(final State STATE, final long DURATION_NANOS, final long ELAPSED_NANOS) {
+        if (null == STATE) { throw new IllegalArgumentException("State cannot be null"); }
+        if (DURATION_NANOS < 0 || ELAPSED_NANOS < 0) { throw new IllegalArgumentException("Duration and elapsed time cannot be negative"); }
+        final TimerEvent EVENT;
+        synchronized (this) {
+            final long NOW = clock.nanoTime();
+            durationNanos = DURATION_NANOS;
+            currentNanos  = ELAPSED_NANOS;
+            if (null != program && program.getDurationNanos() != DURATION_NANOS) { clearProgram(); }
+            setState(STATE);
+            if (State.STOPPED != STATE) { play(NOW); }
+            scheduleNext();
+            switch(STATE) {
+                case RUNNING: EVENT = event(Type.CONTINUED, NOW, ELAPSED_NANOS, 0); break;
+                case WAITING: EVENT = event(Type.WAITING, NOW, ELAPSED_NANOS, 0); break;
+                default     : EVENT = ELAPSED_NANOS > 0 ? event(Type.STOPPED, NOW, ELAPSED_NANOS, 0) : null; break;
+            }
+        }
+        if (null != EVENT) { fireTimerEvent(EVENT); }
+    }
+
+    /**
+     * Advances the model to the given time and fires all PHASE_CHANGED, SECOND
+     * and TICK events that are due and the FINISHED event if the duration is reached.
+     * The events carry the elapsed time of their boundary and the drift
+     * between the boundary and the given time.
+     * In precision mode the events that are handled by the PrecisionScheduler
+     * won't be fired here.
+     * @param NOW the current time of the clock of the model
+     * @return true as long as the model is running or waiting
+     */
+    public boolean update(final long NOW) { return advance(NOW, false); }
+    /**
+     * Advances the model to the current time of its clock.
+     * @return true as long as the model is running or waiting
+     */
+    public boolean update() { return update(clock.nanoTime()); }
+
+    // Returns the time of the model at the given pulse, models with another clock than SYSTEM use their own time
+    long time(final long PULSE) {
+        final TimerClock CLOCK = clock;
+        return TimerClock.SYSTEM == CLOCK ? PULSE : CLOCK.nanoTime();
+    }
+
+    /**
+     * Called by the PrecisionScheduler when the given deadline has been reached.
+     * @return false if the deadline was outdated because the model has changed in the meantime
+     */
+    boolean onPreciseDeadline(final long DEADLINE, final long NOW) {
+        synchronized (this) {
+            if (preciseDeadline != DEADLINE) { return false; }
+            preciseDeadline = Long.MAX_VALUE;
+        }
+        try {
+            advance(NOW, true);
+        } finally {
+            synchronized (this) {
+                // Listeners might have rescheduled the model already
+                if (Long.MAX_VALUE == preciseDeadline) { scheduleNext(); }
+            }
+        }
+        return true;
+    }
+
+    // Takes one due event after the other under the monitor and fires it after the monitor has been released
+    private boolean advance(final long NOW, final boolean PRECISE) {
+        TimerEvent event;
+        while (null != (event = nextEvent(NOW, PRECISE))) { fireTimerEvent(event); }
+        return State.STOPPED != state;
+    }
+
+    // Returns the next due event, listeners that stop or restart the model end the processing because nothing is due anymore
+    private synchronized TimerEvent nextEvent(final long NOW, final boolean PRECISE) {
+        if (State.RUNNING != state) { return null; }
+        final Precision PRECISION = precision();
+        final long      ELAPSED   = NOW - startNanos;
+        if (PRECISE || Precision.ALL != PRECISION) {
+            final long CLAMPED = ELAPSED < durationNanos ? ELAPSED : durationNanos;
+            // A new phase is entered before the SECOND and TICK events of the same boundary are fired
+            if (nextPhaseNanos <= CLAMPED && nextPhaseNanos <= nextSecondNanos && nextPhaseNanos <= nextTickNanos) {
+                final long BOUNDARY = nextPhaseNanos;
+                nextPhaseNanos = nextPhase(BOUNDARY);
+                final TimerEvent EVENT = event(Type.PHASE_CHANGED, NOW, BOUNDARY, ELAPSED - BOUNDARY);
+                final int        PHASE = program.getPhaseIndex(BOUNDARY);
+                EVENT.setPhase(PHASE, program.getDefinitionIndex(PHASE), program.getRepetition(PHASE));
+                return EVENT;
+            }
+            if (nextSecondNanos <= CLAMPED && nextSecondNanos <= nextTickNanos) {
+                final long BOUNDARY = nextSecondNanos;
+                nextSecondNanos += NANOS_PER_SECOND;
+                return event(Type.SECOND, NOW, BOUNDARY, ELAPSED - BOUNDARY);
+            }
+            if (nextTickNanos <= CLAMPED) {
+                final long BOUNDARY = nextTickNanos;
+                nextTickNanos += tickIntervalNanos;
+                final TimerEvent EVENT = event(Type.TICK, NOW, BOUNDARY, ELAPSED - BOUNDARY);
+                EVENT.setTickIndex(BOUNDARY / tickIntervalNanos);
+                return EVENT;
+            }
+        }
+        if ((PRECISE || Precision.FRAME == PRECISION) && ELAPSED >= durationNanos) {
+            final long DURATION = durationNanos;
+            finished();
+            return event(Type.FINISHED, NOW, DURATION, ELAPSED - DURATION);
+        }
+        return null;
+    }
+
+    private void setState(final State STATE) {
+        if (TimerInstrumentation.ENABLED) { TimerInstrumentation.stateChanged(statisticsReference, state, STATE); }
+        state = STATE;
+    }
+
+    private void play(final long NOW) {
+        startNanos      = NOW - currentNanos;
+        nextSecondNanos = nextBoundary(currentNanos, NANOS_PER_SECOND);
+        nextTickNanos   = nextBoundary(currentNanos, tickIntervalNanos);
+        nextPhaseNanos  = nextPhase(currentNanos);
+    }
+
+    // Returns the end of the phase that contains the given elapsed time or Long.MAX_VALUE for the last phase
+    private long nextPhase(final long ELAPSED) {
+        if (null == program) { return Long.MAX_VALUE; }
+        final int PHASE = program.getPhaseIndex(ELAPSED);
+        return PHASE < program.getPhaseCount() - 1 ? program.getPhaseEndNanos(PHASE) : Long.MAX_VALUE;
+    }
+
+    private void clearProgram() {
+        program        = null;
+        nextPhaseNanos = Long.MAX_VALUE;
+    }
+
+    // Returns the first multiple of the interval after the given elapsed time or Long.MAX_VALUE if there is no interval
+    private static long nextBoundary(final long ELAPSED, final long INTERVAL) {
+        return 0 == INTERVAL ? Long.MAX_VALUE : (ELAPSED / INTERVAL + 1) * INTERVAL;
+    }
+
+    private void finished() {
+        currentNanos = 0;
+        setState(State.STOPPED);
+        scheduleNext();
+    }
+
+    /**
+     * Can be used to jump a ManualTimerClock from event to event.
+     * @return the clock time of the next SECOND, TICK, PHASE_CHANGED or FINISHED event or Long.MAX_VALUE if none is pending
+     */
+    public synchronized long getNextDeadlineNanos() {
+        if (State.RUNNING != state) { return Long.MAX_VALUE; }
+        return startNanos + Math.min(Math.min(Math.min(nextSecondNanos, nextTickNanos), nextPhaseNanos), durationNanos);
+    }
+
+    /**
+     * @return the nanoTime of the next event that is fired by the PrecisionScheduler or Long.MAX_VALUE if none is pending
+     */
+    private long getPreciseDeadlineNanos() {
+        switch(precision()) {
+            case FINISHED: return State.RUNNING == state ? startNanos + durationNanos : Long.MAX_VALUE;
+            case ALL     : return getNextDeadlineNanos();
+            default      : return Long.MAX_VALUE;
+        }
+    }
+
+    private void scheduleNext() {
+        if (null != wheelEntry) { wheelEntry.reschedule(); }
+        final long DEADLINE = getPreciseDeadlineNanos();
+        if (DEADLINE != preciseDeadline) {
+            preciseDeadline = DEADLINE;
+            if (Long.MAX_VALUE == DEADLINE) {
+                PrecisionScheduler.getInstance().cancel(TimerModel.this);
+            } else {
+                PrecisionScheduler.getInstance().schedule(TimerModel.this, DEADLINE);
+            }
+        }
+    }
+
+    // The PrecisionScheduler works with System.nanoTime() deadlines only
+    private Precision precision() { return TimerClock.SYSTEM == clock ? precision : Precision.FRAME; }
+
+
+    // ******************** EventHandling *************************************
+    public void setOnTimerEvent(final TimerEventListener LISTENER) { addTimerEventListener(LISTENER); }
+    public void addTimerEventListener(final TimerEventListener LISTENER) { addTimerEventListener(EnumSet.allOf(Type.class), LISTENER); }
+    /**
+     * Registers the given listener only for the given event types.
+     * If the listener is already registered its subscription will be replaced.
+     */
+    public void addTimerEventListener(final Set<Type> TYPES, final TimerEventListener LISTENER) { getListeners().add(LISTENER, LISTENER, TYPES); }
+    public void removeTimerEventListener(final TimerEventListener LISTENER) { if (null != listeners) { listeners.remove(LISTENER); } }
+
+    /**
+     * Registers the given listener for asynchronous delivery on the given executor.
+     * The thread that fires the events never runs the listener code, instead
+     * the events are queued per listener with the given capacity and overflow policy.
+     * The listener can be removed with removeTimerEventListener().
+     */
+    public void addTimerEventListener(final Set<Type> TYPES, final TimerEventListener LISTENER, final Executor EXECUTOR, final int CAPACITY, final AsyncTimerEventListener.OverflowPolicy POLICY) {
+        getListeners().add(LISTENER, new AsyncTimerEventListener(LISTENER, EXECUTOR, CAPACITY, POLICY), TYPES);
+    }
+    public void addTimerEventListener(final TimerEventListener LISTENER, final Executor EXECUTOR, final int CAPACITY, final AsyncTimerEventListener.OverflowPolicy POLICY) {
+        addTimerEventListener(EnumSet.allOf(Type.class), LISTENER, EXECUTOR, CAPACITY, POLICY);
+    }
+    public void addTimerEventListener(final TimerEventListener LISTENER, final Executor EXECUTOR) {
+        addTimerEventListener(LISTENER, EXECUTOR, AsyncTimerEventListener.DEFAULT_CAPACITY, AsyncTimerEventListener.OverflowPolicy.DROP_OLDEST);
+    }
+
+    private TimerEvent durationChanged() {
+        final long NOW = clock.nanoTime();
+        return event(Type.DURATION_CHANGED, NOW, getElapsedNanos(NOW), 0);
+    }
+
+    // Every event is a new instance because listeners might fire nested events of the same type while an event is delivered
+    private TimerEvent event(final Type TYPE, final long NOW, final long ELAPSED, final long DRIFT) {
+        final TimerEvent EVENT = new TimerEvent(TimerModel.this, TYPE);
+        EVENT.set(NOW, ELAPSED, durationNanos - ELAPSED, 0 == durationNanos ? 0 : (double) ELAPSED / durationNanos, DRIFT);
+        return EVENT;
+    }
+
+    public void fireTimerEvent(final TimerEvent EVENT) {
+        // The views have to be in sync with the model before the listeners are informed
+        final Timer[] VIEWS = views;
+        if (null != VIEWS) { for (Timer view : VIEWS) { view.onModelEvent(EVENT); } }
+        if (TimerInstrumentation.ENABLED) { TimerInstrumentation.fired(EVENT); }
+        final TimerEventListeners LISTENERS = listeners;
+        if (null == LISTENERS) { return; }
+        if (TimerInstrumentation.ENABLED) {
+            TimerInstrumentation.dispatch(EVENT, LISTENERS.get(EVENT.getType()));
+            return;
+        }
+        for (TimerEventListener listener : LISTENERS.get(EVENT.getType())) { listener.onTimerEvent(EVENT); }
+    }
+
+    // Created lazily because most headless models only have few or no listeners
+    private TimerEventListeners getListeners() {
+        TimerEventListeners result = listeners;
+        if (null == result) {
+            synchronized (this) {
+                result = listeners;
+                if (null == result) {
+                    result    = new TimerEventListeners();
+                    listeners = result;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Immutable sequence of phases that a TimerModel plays back as one
+ * countdown, e.g. 20 rounds of work and rest. The phases and their
+ * repetitions are compiled once into the elapsed times at which the
+ * phases end, so the model switches phases without gaps and without
+ * allocating and fires a PHASE_CHANGED event with the index of the new
+ * phase. The duration of the model is the sum of all phases.
+ * Phase indices are positions in the played sequence, so every
+ * repetition of a phase has its own index. The example below has 41
+ * phases, the rest after the 3rd work phase has the index 5. The index
+ * of the phase() call that added a phase and the round of its repeat()
+ * group are available with getDefinitionIndex() and getRepetition().
+ * <pre>
+ * TimerProgram program = TimerProgram.builder()
+ *                                    .phase(20, TimeUnit.SECONDS)
+ *                                    .phase(10, TimeUnit.SECONDS)
+ *                                    .repeat(20)
+ *                                    .phase(1, TimeUnit.MINUTES)
+ *                                    .build();
+ * </pre>
+ */
+public final class TimerProgram {
+    private final long[] phaseEnds;
+    private final int[]  definitions;
+    private final int[]  repetitions;
+
+
+    // ******************** Constructors **************************************
+    private TimerProgram(final long[] PHASE_ENDS, final int[] DEFINITIONS, final int[] REPETITIONS) {
+        phaseEnds   = PHASE_ENDS;
+        definitions = DEFINITIONS;
+        repetitions = REPETITIONS;
+    }
+
+
+    // ******************** Methods *******************************************
+    public static Builder builder() { return new Builder(); }
+
+    public int getPhaseCount() { return phaseEnds.length; }
+
+    /**
+     * @return the sum of all phases in nanoseconds
+     */
+    public long getDurationNanos() { return phaseEnds[phaseEnds.length - 1]; }
+
+    public long getPhaseStartNanos(final int INDEX) { return 0 == INDEX ? 0 : phaseEnds[INDEX - 1]; }
+
+    public long getPhaseEndNanos(final int INDEX) { return phaseEnds[INDEX]; }
+
+    public long getPhaseDurationNanos(final int INDEX) { return getPhaseEndNanos(INDEX) - getPhaseStartNanos(INDEX); }
+
+    /**
+     * @return the index of the phase() call of the builder that added the phase at the given position
+     */
+    public int getDefinitionIndex(final int INDEX) { return definitions[INDEX]; }
+
+    /**
+     * @return the round of the repeat() group of the phase at the given position, starting at 0
+     */
+    public int getRepetition(final int INDEX) { return repetitions[INDEX]; }
+
+    /**
+     * @return the index of the phase that contains the given elapsed time, the last phase for the end of the program
+     */
+    public int getPhaseIndex(final long ELAPSED_NANOS) {
+        final int INDEX = Arrays.binarySearch(phaseEnds, ELAPSED_NANOS);
+        // A phase ends exactly at its end time, the next one starts there
+        final int PHASE = INDEX >= 0 ? INDEX + 1 : -INDEX - 1;
+        return PHASE < phaseEnds.length ? PHASE : phaseEnds.length - 1;
+    }
+
+    /**
+     * @return the progress of the phase that contains the given elapsed time in the range 0 - 1
+     */
+    public double getPhaseProgress(final long ELAPSED_NANOS) {
+        final int  PHASE    = getPhaseIndex(ELAPSED_NANOS);
+        final long START    = getPhaseStartNanos(PHASE);
+        final long DURATION = phaseEnds[PHASE] - START;
+        if (0 == DURATION) { return 1; }
+        final double PROGRESS = (double) (ELAPSED_NANOS - START) / DURATION;
+        return PROGRESS < 0 ? 0 : PROGRESS > 1 ? 1 : PROGRESS;
+    }
+
+    @Override public String toString() { return "TimerProgram[phases=" + phaseEnds.length + ", duration=" + getDurationNanos() + " ns]"; }
+
+
+    // ******************** Inner Classes *************************************
+    public static final class Builder {
+        private long[] phases;
+        private int[]  definitions;
+        private int[]  repetitions;
+        private int    count;
+        private int    definitionCount;
+        private int    groupStart;
+
+
+        private Builder() {
+            phases      = new long[8];
+            definitions = new int[8];
+            repetitions = new int[8];
+        }
+
+
+        public Builder phase(final long DURATION, final TimeUnit UNIT) { return phase(UNIT.toNanos(DURATION)); }
+        public Builder phase(final long DURATION_NANOS) {
+            if (DURATION_NANOS <= 0) { throw new IllegalArgumentException("Phase duration must be positive"); }
+            ensureCapacity(count + 1);
+            phases[count]      = DURATION_NANOS;
+            definitions[count] = definitionCount++;
+            count++;
+            return this;
+        }
+
+        /**
+         * Repeats the phases that have been added since the last call of
+         * repeat() so that they are played the given number of times in total.
+         */
+        public Builder repeat(final int TIMES) {
+            if (TIMES < 1) { throw new IllegalArgumentException("Times must be at least 1"); }
+            final int GROUP_SIZE = count - groupStart;
+            if (0 == GROUP_SIZE) { throw new IllegalStateException("No phases to repeat"); }
+            ensureCapacity(groupStart + GROUP_SIZE * (long) TIMES);
+            for (int i = 1 ; i < TIMES ; i++) {
+                System.arraycopy(phases, groupStart, phases, count, GROUP_SIZE);
+                System.arraycopy(definitions, groupStart, definitions, count, GROUP_SIZE);
+                Arrays.fill(repetitions, count, count + GROUP_SIZE, i);
+                count += GROUP_SIZE;
+            }
+            groupStart = count;
+            return this;
+        }
+
+        public TimerProgram build() {
+            if (0 == count) { throw new IllegalStateException("A program needs at least one phase"); }
+            final long[] PHASE_ENDS = new long[count];
+            long end = 0;
+            for (int i = 0 ; i < count ; i++) {
+                end = Math.addExact(end, phases[i]);
+                PHASE_ENDS[i] = end;
+            }
+            return new TimerProgram(PHASE_ENDS, Arrays.copyOf(definitions, count), Arrays.copyOf(repetitions, count));
+        }
+
+        private void ensureCapacity(final long CAPACITY) {
+            if (CAPACITY > Integer.MAX_VALUE - 8) { throw new IllegalArgumentException("Too many phases"); }
+            if (CAPACITY <= phases.length) { return; }
+            final int LENGTH = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(CAPACITY, phases.length * 2L));
+            phases      = Arrays.copyOf(phases, LENGTH);
+            definitions = Arrays.copyOf(definitions, LENGTH);
+            repetitions = Arrays.copyOf(repetitions, LENGTH);
+        }
+    }
+}
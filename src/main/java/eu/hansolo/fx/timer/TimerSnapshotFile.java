@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import eu.hansolo.fx.timer.TimerEvent.Type;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Set;
+
+
+/**
+ * Memory mapped file that keeps the state of many timers across restarts.
+ * Every timer owns a slot with a fixed size record that contains its
+ * state, duration, elapsed time and the wall clock instant at which it
+ * was started (running, waiting) or stopped. An attached model writes
+ * its record when it's attached and on every change of its state or
+ * duration, which only touches the 40 bytes of its slot. The writes go
+ * to the page cache of the OS and survive a crash of the JVM, call
+ * force() to also survive a crash of the OS.
+ * Each record starts with a version that is odd while the record is
+ * written, records that have been torn by a crash are not restored.
+ * On startup restore() puts a model back into its persisted state and
+ * adds the wall time that passed while the process was down.
+ */
+public final class TimerSnapshotFile implements Closeable {
+    public  static final int                  RECORD_SIZE     = 40;
+    private static final int                  HEADER_SIZE     = 16;
+    private static final int                  MAX_CAPACITY    = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+    private static final int                  MAGIC           = 0x544D5253;
+    private static final int                  FORMAT          = 1;
+    private static final int                  VERSION_OFFSET  = 0;
+    private static final int                  STATE_OFFSET    = 8;
+    private static final int                  DURATION_OFFSET = 16;
+    private static final int                  ELAPSED_OFFSET  = 24;
+    private static final int                  INSTANT_OFFSET  = 32;
+    private static final int                  READ_RETRIES    = 16;
+    private static final State[]              STATES          = State.values();
+    private static final Set<Type>            RECORD_CHANGES  = EnumSet.of(Type.STARTED, Type.STOPPED, Type.CONTINUED, Type.FINISHED, Type.RESET, Type.WAITING, Type.DURATION_CHANGED);
+    private        final FileChannel          channel;
+    private        final MappedByteBuffer     buffer;
+    private        final int                  capacity;
+    private        final TimerModel[]         models;
+    private        final TimerEventListener[] listeners;
+
+
+    // ******************** Constructors **************************************
+    private TimerSnapshotFile(final FileChannel CHANNEL, final MappedByteBuffer BUFFER, final int CAPACITY) {
+        channel   = CHANNEL;
+        buffer    = BUFFER;
+        capacity  = CAPACITY;
+        models    = new TimerModel[CAPACITY];
+        listeners = new TimerEventListener[CAPACITY];
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Opens the given snapshot file or creates it if it doesn't exist.
+     * An existing file keeps its records and is enlarged if it has less
+     * than the given number of slots.
+     */
+    public static TimerSnapshotFile open(final Path PATH, final int CAPACITY) throws IOException {
+        if (CAPACITY < 1 || CAPACITY > MAX_CAPACITY) { throw new IllegalArgumentException("Capacity must be in [1, " + MAX_CAPACITY + "]"); }
+        final FileChannel CHANNEL = FileChannel.open(PATH, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int capacity = CAPACITY;
+            if (CHANNEL.size() > 0) {
+                final MappedByteBuffer HEADER = CHANNEL.map(MapMode.READ_ONLY, 0, Math.min(CHANNEL.size(), HEADER_SIZE));
+                if (HEADER.limit() < HEADER_SIZE || MAGIC != HEADER.getInt(0) || FORMAT != HEADER.getInt(4)) {
+                    throw new IOException("Not a timer snapshot file: " + PATH);
+                }
+                capacity = Math.max(capacity, HEADER.getInt(8));
+            }
+            final MappedByteBuffer BUFFER = CHANNEL.map(MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+            BUFFER.putInt(0, MAGIC);
+            BUFFER.putInt(4, FORMAT);
+            BUFFER.putInt(8, capacity);
+            return new TimerSnapshotFile(CHANNEL, BUFFER, capacity);
+        } catch (IOException | RuntimeException e) {
+            CHANNEL.close();
+            throw e;
+        }
+    }
+
+    public int getCapacity() { return capacity; }
+
+    /**
+     * @return true if the given slot contains a complete record
+     */
+    public boolean isUsed(final int SLOT) {
+        final int BASE = offset(SLOT);
+        return 0 == (buffer.getLong(BASE + VERSION_OFFSET) & 1) && 0 != buffer.getInt(BASE + STATE_OFFSET);
+    }
+
+    /**
+     * Writes the record of the given model into the given slot now and on
+     * every change of its state or duration. A model that was attached to
+     * the slot before will be detached. Call restore() before attaching a
+     * model if it should continue from the persisted state.
+     */
+    public synchronized void attach(final int SLOT, final TimerModel MODEL) {
+        if (null == MODEL) { throw new IllegalArgumentException("Model cannot be null"); }
+        detach(SLOT);
+        final TimerEventListener LISTENER = event -> write(SLOT, event.getModel());
+        models[SLOT]    = MODEL;
+        listeners[SLOT] = LISTENER;
+        MODEL.addTimerEventListener(RECORD_CHANGES, LISTENER);
+        write(SLOT, MODEL);
+    }
+
+    /**
+     * Stops writing the record of the model that is attached to the given slot,
+     * the record itself stays in the file.
+     */
+    public synchronized void detach(final int SLOT) {
+        offset(SLOT);
+        if (null == models[SLOT]) { return; }
+        models[SLOT].removeTimerEventListener(listeners[SLOT]);
+        models[SLOT]    = null;
+        listeners[SLOT] = null;
+    }
+
+    /**
+     * Writes the current state of the given model into the given slot.
+     */
+    public void write(final int SLOT, final TimerModel MODEL) {
+        final int BASE = offset(SLOT);
+        // Reads state and elapsed time consistently and serializes the writes of one model
+        synchronized (MODEL) {
+            final long  WALL    = wallNanos();
+            final State STATE   = MODEL.getState();
+            final long  ELAPSED = MODEL.getElapsedNanos();
+            final long  VERSION = buffer.getLong(BASE + VERSION_OFFSET) & ~1L;
+            buffer.putLong(BASE + VERSION_OFFSET, VERSION + 1);
+            buffer.putInt(BASE + STATE_OFFSET, STATE.ordinal() + 1);
+            buffer.putLong(BASE + DURATION_OFFSET, MODEL.getDurationNanos());
+            buffer.putLong(BASE + ELAPSED_OFFSET, ELAPSED);
+            buffer.putLong(BASE + INSTANT_OFFSET, State.STOPPED == STATE ? WALL : WALL - ELAPSED);
+            buffer.putLong(BASE + VERSION_OFFSET, VERSION + 2);
+        }
+    }
+
+    /**
+     * Puts the given model into the state of the record in the given slot.
+     * Running and waiting models continue with the wall time that has passed
+     * since they were started, a running model whose duration has been
+     * exceeded in the meantime fires its FINISHED event with the next update.
+     * @return false if the slot is empty or its record has been torn
+     */
+    public boolean restore(final int SLOT, final TimerModel MODEL) {
+        final int BASE = offset(SLOT);
+        for (int i = 0 ; i < READ_RETRIES ; i++) {
+            final long VERSION = buffer.getLong(BASE + VERSION_OFFSET);
+            if (0 != (VERSION & 1)) {
+                Thread.yield();
+                continue;
+            }
+            final int  STATE    = buffer.getInt(BASE + STATE_OFFSET);
+            final long DURATION = buffer.getLong(BASE + DURATION_OFFSET);
+            final long ELAPSED  = buffer.getLong(BASE + ELAPSED_OFFSET);
+            final long INSTANT  = buffer.getLong(BASE + INSTANT_OFFSET);
+            if (VERSION != buffer.getLong(BASE + VERSION_OFFSET)) { continue; }
+            if (STATE < 1 || STATE > STATES.length || DURATION < 0 || ELAPSED < 0) { return false; }
+            final State RESTORED = STATES[STATE - 1];
+            // The wall clock might have been set back while the process was down
+            final long  NOW      = State.STOPPED == RESTORED ? ELAPSED : Math.max(ELAPSED, wallNanos() - INSTANT);
+            MODEL.restore(RESTORED, DURATION, NOW);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the record of the given slot.
+     */
+    public void clear(final int SLOT) {
+        final int  BASE    = offset(SLOT);
+        final long VERSION = buffer.getLong(BASE + VERSION_OFFSET) & ~1L;
+        buffer.putLong(BASE + VERSION_OFFSET, VERSION + 1);
+        buffer.putInt(BASE + STATE_OFFSET, 0);
+        buffer.putLong(BASE + VERSION_OFFSET, VERSION + 2);
+    }
+
+    /**
+     * Writes all changes to the storage device.
+     */
+    public void force() { buffer.force(); }
+
+    /**
+     * Detaches all models and writes all changes to the storage device.
+     * The mapping itself is released when the buffer is garbage collected.
+     */
+    @Override public synchronized void close() throws IOException {
+        for (int slot = 0 ; slot < capacity ; slot++) { detach(slot); }
+        buffer.force();
+        channel.close();
+    }
+
+    private int offset(final int SLOT) {
+        if (SLOT < 0 || SLOT >= capacity) { throw new IndexOutOfBoundsException("Slot " + SLOT + " is not in [0, " + capacity + ")"); }
+        return HEADER_SIZE + SLOT * RECORD_SIZE;
+    }
+
+    private static long wallNanos() { return System.currentTimeMillis() * 1_000_000L; }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.ArcType;
+import javafx.scene.shape.StrokeLineCap;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+
+/**
+ * Shared cache of pre-rendered progress bar sprites for the SPRITES
+ * render mode of the Timer. A sprite is an atlas with 361 cells that
+ * contain the progress bar from 0 to 360 degrees, rendered once for a
+ * combination of cell size, color and background color. The Timer
+ * shows the cell of the current progress through the viewport of an
+ * ImageView instead of tessellating an Arc on every change.
+ * The cell size in pixels is rounded up to a multiple of CELL_STEP, so
+ * resizing a timer doesn't render a sprite for every intermediate size.
+ * The cache evicts the least recently used sprites if their size exceeds
+ * the maximum number of bytes. Sprites are only created for cells up to
+ * MAX_CELL_SIZE pixels whose atlas fits into the maximum number of bytes,
+ * the atlas of the largest cell fits into DEFAULT_MAX_BYTES. Larger
+ * timers keep rendering shapes.
+ * Must only be used on the FX application thread.
+ */
+public final class TimerSpriteCache {
+    public  static final int                  STEPS             = 360;
+    public  static final int                  MAX_CELL_SIZE     = 152;
+    public  static final int                  CELL_STEP         = 4;
+    public  static final long                 DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+    private static final int                  COLUMNS           = 19;
+    private static final int                  ROWS              = (STEPS + COLUMNS) / COLUMNS;
+    private static final Map<Key, Sprite>     CACHE             = new LinkedHashMap<>(16, 0.75f, true);
+    private static       long                 maxBytes          = DEFAULT_MAX_BYTES;
+    private static       long                 bytes             = 0;
+
+
+    // ******************** Constructors **************************************
+    private TimerSpriteCache() {}
+
+
+    // ******************** Methods *******************************************
+    public static long getMaxBytes() { return maxBytes; }
+    /**
+     * Defines the maximum number of bytes of all cached sprites, an atlas
+     * needs 4 bytes per pixel, e.g. 8 MB for a timer of 76x76 pixels.
+     */
+    public static void setMaxBytes(final long MAX_BYTES) {
+        if (MAX_BYTES < 0) { throw new IllegalArgumentException("Max bytes cannot be negative"); }
+        maxBytes = MAX_BYTES;
+        trim(null);
+    }
+
+    /**
+     * @return the number of bytes of all cached sprites
+     */
+    public static long getBytes() { return bytes; }
+
+    public static int size() { return CACHE.size(); }
+
+    public static void clear() {
+        CACHE.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @return the sprite for the given parameters or null if the timer is too large for sprites
+     */
+    static Sprite get(final double SIZE, final double SCALE, final Color COLOR, final Color BACKGROUND_COLOR) {
+        final int CELL = (int) Math.ceil(Math.ceil(SIZE * SCALE) / CELL_STEP) * CELL_STEP;
+        if (CELL < 1 || CELL > MAX_CELL_SIZE || getAtlasBytes(CELL) > maxBytes) { return null; }
+        final Key KEY    = new Key(CELL, COLOR, BACKGROUND_COLOR);
+        Sprite    sprite = CACHE.get(KEY);
+        if (null == sprite) {
+            sprite = render(CELL, COLOR, BACKGROUND_COLOR);
+            CACHE.put(KEY, sprite);
+            bytes += sprite.getBytes();
+            trim(KEY);
+        }
+        return sprite;
+    }
+
+    /**
+     * @return the number of bytes of the atlas for cells of the given size in pixels
+     */
+    static long getAtlasBytes(final int CELL) { return (long) COLUMNS * CELL * ROWS * CELL * 4; }
+
+    // Evicts the least recently used sprites but never the one that was just added
+    private static void trim(final Key KEEP) {
+        final Iterator<Map.Entry<Key, Sprite>> ITERATOR = CACHE.entrySet().iterator();
+        while (bytes > maxBytes && ITERATOR.hasNext()) {
+            final Map.Entry<Key, Sprite> ENTRY = ITERATOR.next();
+            if (ENTRY.getKey().equals(KEEP)) { continue; }
+            bytes -= ENTRY.getValue().getBytes();
+            ITERATOR.remove();
+        }
+    }
+
+    private static Sprite render(final int CELL, final Color COLOR, final Color BACKGROUND_COLOR) {
+        final Canvas          CANVAS      = new Canvas(COLUMNS * CELL, ROWS * CELL);
+        final GraphicsContext CTX         = CANVAS.getGraphicsContext2D();
+        // Same geometry as the progress bar of the Timer
+        final Timer.Geometry  GEOMETRY    = Timer.Geometry.of(CELL);
+        final double          RADIUS      = GEOMETRY.progressRadius;
+        final double          CENTER      = GEOMETRY.center;
+        final Rectangle2D[]   VIEWPORTS   = new Rectangle2D[STEPS + 1];
+        CTX.setLineWidth(GEOMETRY.progressStrokeWidth);
+        CTX.setLineCap(StrokeLineCap.BUTT);
+        CTX.setStroke(COLOR);
+        CTX.setFill(BACKGROUND_COLOR);
+        for (int step = 0 ; step <= STEPS ; step++) {
+            final double X = (step % COLUMNS) * CELL;
+            final double Y = (step / COLUMNS) * CELL;
+            VIEWPORTS[step] = new Rectangle2D(X, Y, CELL, CELL);
+            if (0 == step) { continue; }
+            CTX.fillArc(X + CENTER - RADIUS, Y + CENTER - RADIUS, 2 * RADIUS, 2 * RADIUS, 90, -step, ArcType.OPEN);
+            CTX.strokeArc(X + CENTER - RADIUS, Y + CENTER - RADIUS, 2 * RADIUS, 2 * RADIUS, 90, -step, ArcType.OPEN);
+        }
+        final SnapshotParameters PARAMETERS = new SnapshotParameters();
+        PARAMETERS.setFill(Color.TRANSPARENT);
+        return new Sprite(CANVAS.snapshot(PARAMETERS, null), VIEWPORTS);
+    }
+
+
+    // ******************** Inner Classes *************************************
+    static final class Sprite {
+        private final Image         image;
+        private final Rectangle2D[] viewports;
+
+
+        Sprite(final Image IMAGE, final Rectangle2D[] VIEWPORTS) {
+            image     = IMAGE;
+            viewports = VIEWPORTS;
+        }
+
+        Image getImage() { return image; }
+
+        /**
+         * @return the viewport of the cell that shows the given progress in the range of [0, 1]
+         */
+        Rectangle2D getViewport(final double PROGRESS) {
+            final int STEP = (int) Math.round(PROGRESS * STEPS);
+            return viewports[STEP < 0 ? 0 : STEP > STEPS ? STEPS : STEP];
+        }
+
+        long getBytes() { return (long) image.getWidth() * (long) image.getHeight() * 4; }
+    }
+
+    private static final class Key {
+        private final int   cell;
+        private final Color color;
+        private final Color backgroundColor;
+        private final int   hash;
+
+
+        Key(final int CELL, final Color COLOR, final Color BACKGROUND_COLOR) {
+            cell            = CELL;
+            color           = COLOR;
+            backgroundColor = BACKGROUND_COLOR;
+            hash            = Objects.hash(CELL, COLOR, BACKGROUND_COLOR);
+        }
+
+        @Override public boolean equals(final Object OBJECT) {
+            if (this == OBJECT) { return true; }
+            if (!(OBJECT instanceof Key)) { return false; }
+            final Key OTHER = (Key) OBJECT;
+            return cell == OTHER.cell && Objects.equals(color, OTHER.color) && Objects.equals(backgroundColor, OTHER.backgroundColor);
+        }
+
+        @Override public int hashCode() { return hash; }
+    }
+}
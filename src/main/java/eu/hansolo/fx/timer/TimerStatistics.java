@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import eu.hansolo.fx.timer.TimerEvent.Type;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Aggregated statistics of all timers, registered as MXBean under
+ * OBJECT_NAME. The statistics are only collected if the system property
+ * eu.hansolo.fx.timer.instrumentation is set to true, otherwise the
+ * instrumentation is removed by the JIT and all values stay 0.
+ * The counters are LongAdders so that timers on different threads
+ * don't contend. The state counts only contain models that are alive,
+ * every model is tracked with a phantom reference and the counts of
+ * garbage collected models are removed when the counts are read or a
+ * new model is created.
+ * The FINISHED lateness is recorded in a log-linear histogram with a
+ * resolution of 12.5%, the percentiles return the upper bound of the
+ * bucket that contains the percentile.
+ */
+public final class TimerStatistics implements TimerStatisticsMXBean {
+    public  static final String                     OBJECT_NAME  = "eu.hansolo.fx.timer:type=TimerStatistics";
+    private static final Type[]                     TYPES        = Type.values();
+    private static final int                        LINEAR       = 16;
+    private static final int                        SUB_BITS     = 3;
+    private static final int                        SUB_BUCKETS  = 1 << SUB_BITS;
+    private static final int                        BUCKETS      = LINEAR + (63 - 4) * SUB_BUCKETS;
+    private static final TimerStatistics            INSTANCE     = new TimerStatistics();
+    private        final LongAdder[]                states;
+    private        final ReferenceQueue<TimerModel> collected;
+    private        final Set<ModelReference>        references;
+    private        final LongAdder[]                events;
+    private        final LongAdder[]                lateness;
+    private        final LongAccumulator            maxLateness;
+    private        final AtomicReference<Slowest>   slowest;
+    private        final long[]                     lastCounts;
+    private        final double[]                   lastRates;
+    private              long                       lastRateNanos;
+
+
+    // ******************** Constructors **************************************
+    private TimerStatistics() {
+        states        = adders(State.values().length);
+        collected     = new ReferenceQueue<>();
+        references    = ConcurrentHashMap.newKeySet();
+        events        = adders(TYPES.length);
+        lateness      = adders(BUCKETS);
+        maxLateness   = new LongAccumulator(Math::max, 0);
+        slowest       = new AtomicReference<>(new Slowest(null, 0));
+        lastCounts    = new long[TYPES.length];
+        lastRates     = new double[TYPES.length];
+        lastRateNanos = System.nanoTime();
+    }
+
+
+    // ******************** Methods *******************************************
+    public static TimerStatistics getInstance() { return INSTANCE; }
+
+    /**
+     * Registers the statistics at the platform MBeanServer, called once when the instrumentation is enabled.
+     */
+    static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            // Already registered, e.g. by another class loader
+        }
+    }
+
+    @Override public long getRunningCount() { return getCount(State.RUNNING); }
+
+    @Override public long getWaitingCount() { return getCount(State.WAITING); }
+
+    @Override public long getStoppedCount() { return getCount(State.STOPPED); }
+
+    private long getCount(final State STATE) {
+        expunge();
+        return states[STATE.ordinal()].sum();
+    }
+
+    @Override public Map<String, Long> getEventCounts() {
+        final Map<String, Long> COUNTS = new LinkedHashMap<>();
+        for (Type type : TYPES) { COUNTS.put(type.name(), events[type.ordinal()].sum()); }
+        return COUNTS;
+    }
+
+    @Override public synchronized Map<String, Double> getEventsPerSecond() {
+        final long NOW     = System.nanoTime();
+        final long ELAPSED = NOW - lastRateNanos;
+        // Calls that follow each other closely return the previous rates
+        if (ELAPSED >= TimerModel.NANOS_PER_SECOND) {
+            for (Type type : TYPES) {
+                final long COUNT = events[type.ordinal()].sum();
+                lastRates[type.ordinal()]  = (COUNT - lastCounts[type.ordinal()]) * (double) TimerModel.NANOS_PER_SECOND / ELAPSED;
+                lastCounts[type.ordinal()] = COUNT;
+            }
+            lastRateNanos = NOW;
+        }
+        final Map<String, Double> RATES = new LinkedHashMap<>();
+        for (Type type : TYPES) { RATES.put(type.name(), lastRates[type.ordinal()]); }
+        return RATES;
+    }
+
+    @Override public String getSlowestListener() { return slowest.get().listener; }
+
+    @Override public long getSlowestListenerNanos() { return slowest.get().nanos; }
+
+    @Override public long getFinishedCount() { return events[Type.FINISHED.ordinal()].sum(); }
+
+    @Override public long getFinishedLatenessP50Nanos() { return getFinishedLatenessNanos(0.5); }
+
+    @Override public long getFinishedLatenessP90Nanos() { return getFinishedLatenessNanos(0.9); }
+
+    @Override public long getFinishedLatenessP99Nanos() { return getFinishedLatenessNanos(0.99); }
+
+    @Override public long getFinishedLatenessP999Nanos() { return getFinishedLatenessNanos(0.999); }
+
+    @Override public long getFinishedLatenessMaxNanos() { return maxLateness.get(); }
+
+    /**
+     * @param PERCENTILE the percentile in the range of [0, 1]
+     * @return the upper bound of the lateness of the given percentile of all FINISHED events
+     */
+    public long getFinishedLatenessNanos(final double PERCENTILE) {
+        final long[] COUNTS = new long[BUCKETS];
+        long         total  = 0;
+        for (int i = 0 ; i < BUCKETS ; i++) {
+            COUNTS[i] = lateness[i].sum();
+            total    += COUNTS[i];
+        }
+        if (0 == total) { return 0; }
+        final long TARGET = Math.max(1, (long) Math.ceil(PERCENTILE * total));
+        long       count  = 0;
+        for (int i = 0 ; i < BUCKETS ; i++) {
+            count += COUNTS[i];
+            if (count >= TARGET) { return Math.min(upperBound(i), maxLateness.get()); }
+        }
+        return maxLateness.get();
+    }
+
+    @Override public void reset() {
+        for (LongAdder adder : events) { adder.reset(); }
+        for (LongAdder adder : lateness) { adder.reset(); }
+        maxLateness.reset();
+        slowest.set(new Slowest(null, 0));
+        synchronized (this) {
+            Arrays.fill(lastCounts, 0);
+            Arrays.fill(lastRates, 0);
+            lastRateNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * @return the reference that tracks the state of the given new model until it is garbage collected
+     */
+    ModelReference created(final TimerModel MODEL) {
+        expunge();
+        final ModelReference REFERENCE = new ModelReference(MODEL, collected);
+        references.add(REFERENCE);
+        states[State.STOPPED.ordinal()].increment();
+        return REFERENCE;
+    }
+
+    void stateChanged(final ModelReference REFERENCE, final State OLD_STATE, final State NEW_STATE) {
+        if (OLD_STATE == NEW_STATE) { return; }
+        REFERENCE.state = NEW_STATE;
+        states[OLD_STATE.ordinal()].decrement();
+        states[NEW_STATE.ordinal()].increment();
+    }
+
+    // Removes the garbage collected models from the state counts, the state of a collected model can't change anymore
+    private void expunge() {
+        ModelReference reference;
+        while (null != (reference = (ModelReference) collected.poll())) {
+            if (references.remove(reference)) { states[reference.state.ordinal()].decrement(); }
+        }
+    }
+
+    void fired(final TimerEvent EVENT) {
+        events[EVENT.getType().ordinal()].increment();
+        if (Type.FINISHED == EVENT.getType()) {
+            final long LATENESS = Math.max(0, EVENT.getDriftNanos());
+            lateness[bucket(LATENESS)].increment();
+            maxLateness.accumulate(LATENESS);
+        }
+    }
+
+    void listenerTime(final TimerEventListener LISTENER, final long NANOS) {
+        Slowest current = slowest.get();
+        while (NANOS > current.nanos) {
+            // The class name is only resolved for a new maximum
+            final Slowest NEXT = new Slowest(listenerName(LISTENER), NANOS);
+            if (slowest.compareAndSet(current, NEXT)) { return; }
+            current = slowest.get();
+        }
+    }
+
+    static String listenerName(final TimerEventListener LISTENER) {
+        final TimerEventListener DELEGATE = LISTENER instanceof AsyncTimerEventListener ? ((AsyncTimerEventListener) LISTENER).getDelegate() : LISTENER;
+        return DELEGATE.getClass().getName();
+    }
+
+    private static int bucket(final long VALUE) {
+        if (VALUE < LINEAR) { return (int) VALUE; }
+        final int EXPONENT = 63 - Long.numberOfLeadingZeros(VALUE);
+        final int SUB      = (int) (VALUE >>> (EXPONENT - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (EXPONENT - 4) * SUB_BUCKETS + SUB;
+    }
+
+    private static long upperBound(final int BUCKET) {
+        if (BUCKET < LINEAR) { return BUCKET; }
+        final int  EXPONENT = (BUCKET - LINEAR) / SUB_BUCKETS + 4;
+        final int  SUB      = (BUCKET - LINEAR) % SUB_BUCKETS;
+        final long LOWER    = (long) (SUB_BUCKETS + SUB) << (EXPONENT - SUB_BITS);
+        return LOWER + (1L << (EXPONENT - SUB_BITS)) - 1;
+    }
+
+    private static LongAdder[] adders(final int COUNT) {
+        final LongAdder[] ADDERS = new LongAdder[COUNT];
+        for (int i = 0 ; i < COUNT ; i++) { ADDERS[i] = new LongAdder(); }
+        return ADDERS;
+    }
+
+
+    // ******************** Inner Classes *************************************
+    static final class ModelReference extends PhantomReference<TimerModel> {
+        private volatile State state;
+
+
+        ModelReference(final TimerModel MODEL, final ReferenceQueue<TimerModel> QUEUE) {
+            super(MODEL, QUEUE);
+            state = State.STOPPED;
+        }
+    }
+
+    private static final class Slowest {
+        private final String listener;
+        private final long   nanos;
+
+
+        Slowest(final String LISTENER, final long NANOS) {
+            listener = LISTENER;
+            nanos    = NANOS;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import java.util.Map;
+
+
+/**
+ * Management interface of the TimerStatistics.
+ */
+public interface TimerStatisticsMXBean {
+    /**
+     * @return the number of models that are alive and running
+     */
+    long getRunningCount();
+
+    long getWaitingCount();
+
+    long getStoppedCount();
+
+    /**
+     * @return the number of fired events by type
+     */
+    Map<String, Long> getEventCounts();
+
+    /**
+     * @return the events per second by type since the previous call
+     */
+    Map<String, Double> getEventsPerSecond();
+
+    /**
+     * @return the class of the listener that took the longest to handle an event
+     */
+    String getSlowestListener();
+
+    long getSlowestListenerNanos();
+
+    long getFinishedCount();
+
+    long getFinishedLatenessP50Nanos();
+
+    long getFinishedLatenessP90Nanos();
+
+    long getFinishedLatenessP99Nanos();
+
+    long getFinishedLatenessP999Nanos();
+
+    long getFinishedLatenessMaxNanos();
+
+    /**
+     * Resets the event counts, the slowest listener and the lateness histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import eu.hansolo.fx.timer.TimerEvent.Type;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+
+/**
+ * Compact storage for a very large number of headless countdowns.
+ * Instead of one object graph per timer the state is kept in parallel
+ * primitive columns, a byte for the state, an int for the duration in
+ * milliseconds and two longs for the deadline and the elapsed nanos,
+ * which adds up to 21 bytes per timer. The columns can either be Java
+ * arrays or direct ByteBuffers outside of the heap.
+ * Timers are addressed by int handles which are reused after release().
+ * The state machine and the events are the same as the ones of the
+ * TimerModel except that there are no SECOND and TICK events.
+ * Deadlines are System.nanoTime() values and only compared by their
+ * difference, so the store keeps working when nanoTime() overflows.
+ * The store is not thread safe and must be confined to one thread.
+ */
+public final class TimerStore {
+    @FunctionalInterface
+    public interface Listener {
+        void onTimerEvent(final int HANDLE, final Type TYPE);
+    }
+    public  static final int      DEFAULT_CAPACITY = 1024;
+    private static final long     NANOS_PER_MILLI  = 1_000_000L;
+    private static final byte     STOPPED          = 0;
+    private static final byte     RUNNING          = 1;
+    private static final byte     WAITING          = 2;
+    private static final byte     FREE             = 3;
+    private static final byte     STATE_MASK       = 0x0F;
+    // Marks handles that are in the list of running timers
+    private static final byte     LISTED           = 0x10;
+    private static final State[]  STATES           = { State.STOPPED, State.RUNNING, State.WAITING };
+    private        final Columns  columns;
+    private              int[]    running;
+    private              int      runningCount;
+    // Earliest deadline of the running list, only valid if the list is not empty
+    private              long     nextDeadline;
+    // Earliest deadline that has been moved since update() started to visit the running list, only valid if moved is set
+    private              long     movedDeadline;
+    private              boolean  moved;
+    private              int      freeHead;
+    private              int      allocated;
+    private              int      size;
+    private              Listener listener;
+
+
+    // ******************** Constructors **************************************
+    public TimerStore() {
+        this(DEFAULT_CAPACITY, false);
+    }
+    /**
+     * @param INITIAL_CAPACITY the number of timers the store can hold before it grows
+     * @param OFF_HEAP true to keep the columns in direct ByteBuffers outside of the heap
+     */
+    public TimerStore(final int INITIAL_CAPACITY, final boolean OFF_HEAP) {
+        if (INITIAL_CAPACITY < 1) { throw new IllegalArgumentException("Capacity must be at least 1"); }
+        columns       = OFF_HEAP ? new DirectColumns(INITIAL_CAPACITY) : new HeapColumns(INITIAL_CAPACITY);
+        running       = new int[Math.min(INITIAL_CAPACITY, DEFAULT_CAPACITY)];
+        runningCount  = 0;
+        nextDeadline  = 0;
+        movedDeadline = 0;
+        moved         = false;
+        freeHead      = -1;
+        allocated     = 0;
+        size          = 0;
+    }
+
+
+    // ******************** Methods *******************************************
+    public boolean isOffHeap() { return columns instanceof DirectColumns; }
+
+    /**
+     * @return the number of timers in the store
+     */
+    public int size() { return size; }
+
+    public int getCapacity() { return columns.capacity(); }
+
+    /**
+     * @return the number of timers that might be running, stopped timers are removed with the next update
+     */
+    public int getRunningCount() { return runningCount; }
+
+    public void setOnTimerEvent(final Listener LISTENER) { listener = LISTENER; }
+
+    /**
+     * Adds a stopped timer with the given duration.
+     * @return the handle of the new timer
+     */
+    public int create(final int DURATION_MILLIS) {
+        if (DURATION_MILLIS < 0) { throw new IllegalArgumentException("Duration cannot be negative"); }
+        final int HANDLE;
+        if (-1 != freeHead) {
+            HANDLE   = freeHead;
+            // Free handles are chained through the duration column
+            freeHead = columns.duration(HANDLE);
+        } else {
+            if (allocated == columns.capacity()) { columns.grow(growCapacity(columns.capacity())); }
+            HANDLE = allocated++;
+        }
+        // A reused handle might still be in the running list
+        setState(HANDLE, STOPPED);
+        columns.duration(HANDLE, DURATION_MILLIS);
+        columns.deadline(HANDLE, 0);
+        columns.elapsed(HANDLE, 0);
+        size++;
+        return HANDLE;
+    }
+
+    /**
+     * Removes the timer without firing an event, the handle will be reused.
+     */
+    public void release(final int HANDLE) {
+        check(HANDLE);
+        // A listed handle stays in the running list until the next update removes it
+        columns.state(HANDLE, (byte) (FREE | (columns.state(HANDLE) & LISTED)));
+        columns.duration(HANDLE, freeHead);
+        freeHead = HANDLE;
+        size--;
+    }
+
+    public State getState(final int HANDLE) { return STATES[stateOf(check(HANDLE))]; }
+
+    public int getDurationMillis(final int HANDLE) { return columns.duration(check(HANDLE)); }
+    public void setDurationMillis(final int HANDLE, final int DURATION_MILLIS) {
+        if (DURATION_MILLIS < 0) { throw new IllegalArgumentException("Duration cannot be negative"); }
+        check(HANDLE);
+        if (RUNNING == stateOf(HANDLE)) {
+            // Keep the elapsed time and move the deadline
+            final long DEADLINE = columns.deadline(HANDLE) + (DURATION_MILLIS - columns.duration(HANDLE)) * NANOS_PER_MILLI;
+            columns.deadline(HANDLE, DEADLINE);
+            // A running timer is always in the running list
+            lowerNextDeadline(DEADLINE);
+        }
+        columns.duration(HANDLE, DURATION_MILLIS);
+    }
+
+    public long getElapsedNanos(final int HANDLE) { return getElapsedNanos(HANDLE, System.nanoTime()); }
+    public long getElapsedNanos(final int HANDLE, final long NOW) {
+        check(HANDLE);
+        switch(stateOf(HANDLE)) {
+            case RUNNING:
+                final long DURATION = columns.duration(HANDLE) * NANOS_PER_MILLI;
+                final long ELAPSED  = DURATION - (columns.deadline(HANDLE) - NOW);
+                return ELAPSED < DURATION ? ELAPSED : DURATION;
+            case WAITING: return NOW - columns.deadline(HANDLE);
+            default     : return columns.elapsed(HANDLE);
+        }
+    }
+
+    public long getRemainingNanos(final int HANDLE) { return getRemainingNanos(HANDLE, System.nanoTime()); }
+    public long getRemainingNanos(final int HANDLE, final long NOW) {
+        final long DURATION = columns.duration(check(HANDLE)) * NANOS_PER_MILLI;
+        return WAITING == stateOf(HANDLE) ? DURATION : DURATION - getElapsedNanos(HANDLE, NOW);
+    }
+
+    public double getProgress(final int HANDLE) { return getProgress(HANDLE, System.nanoTime()); }
+    public double getProgress(final int HANDLE, final long NOW) {
+        final int DURATION = columns.duration(check(HANDLE));
+        if (WAITING == stateOf(HANDLE) || 0 == DURATION) { return 0; }
+        return (double) getElapsedNanos(HANDLE, NOW) / (DURATION * NANOS_PER_MILLI);
+    }
+
+    public void start(final int HANDLE) {
+        check(HANDLE);
+        columns.elapsed(HANDLE, 0);
+        play(HANDLE, System.nanoTime());
+        fire(HANDLE, Type.STARTED);
+    }
+    public void startFromCurrent(final int HANDLE) {
+        check(HANDLE);
+        play(HANDLE, System.nanoTime());
+        fire(HANDLE, Type.CONTINUED);
+    }
+    public void stop(final int HANDLE) {
+        check(HANDLE);
+        columns.elapsed(HANDLE, RUNNING == stateOf(HANDLE) ? getElapsedNanos(HANDLE, System.nanoTime()) : 0);
+        setState(HANDLE, STOPPED);
+        fire(HANDLE, Type.STOPPED);
+    }
+    public void reset(final int HANDLE) {
+        check(HANDLE);
+        columns.elapsed(HANDLE, 0);
+        setState(HANDLE, STOPPED);
+        fire(HANDLE, Type.RESET);
+    }
+    public void waiting(final int HANDLE) {
+        check(HANDLE);
+        columns.elapsed(HANDLE, 0);
+        // The deadline column holds the start of the waiting period
+        columns.deadline(HANDLE, System.nanoTime());
+        setState(HANDLE, WAITING);
+        fire(HANDLE, Type.WAITING);
+    }
+
+    public int update() { return update(System.nanoTime()); }
+    /**
+     * Fires the FINISHED event of every running timer whose deadline has
+     * passed. Only the running timers are visited and nothing is visited
+     * before the earliest known deadline.
+     * @param NOW the current System.nanoTime()
+     * @return the number of timers that have finished
+     */
+    public int update(final long NOW) {
+        if (0 == runningCount || NOW - nextDeadline < 0) { return 0; }
+        // Listeners might move the deadline of a timer that has been visited already
+        moved = false;
+        long earliest = 0;
+        int  finished = 0;
+        int  alive    = 0;
+        // Timers that are started by listeners are appended and visited in this pass too
+        for (int i = 0 ; i < runningCount ; i++) {
+            final int  HANDLE = running[i];
+            final byte STATE  = columns.state(HANDLE);
+            if (RUNNING != (STATE & STATE_MASK)) {
+                columns.state(HANDLE, (byte) (STATE & STATE_MASK));
+                continue;
+            }
+            final long DEADLINE = columns.deadline(HANDLE);
+            if (NOW - DEADLINE >= 0) {
+                columns.elapsed(HANDLE, 0);
+                columns.state(HANDLE, STOPPED);
+                finished++;
+                fire(HANDLE, Type.FINISHED);
+                continue;
+            }
+            if (0 == alive || DEADLINE - earliest < 0) { earliest = DEADLINE; }
+            running[alive++] = HANDLE;
+        }
+        runningCount = alive;
+        nextDeadline = moved && (0 == alive || movedDeadline - earliest < 0) ? movedDeadline : earliest;
+        return finished;
+    }
+
+    private void play(final int HANDLE, final long NOW) {
+        final long DEADLINE = NOW + columns.duration(HANDLE) * NANOS_PER_MILLI - columns.elapsed(HANDLE);
+        columns.deadline(HANDLE, DEADLINE);
+        setState(HANDLE, RUNNING);
+        lowerNextDeadline(DEADLINE);
+        if (0 == (columns.state(HANDLE) & LISTED)) {
+            if (runningCount == running.length) { running = Arrays.copyOf(running, growCapacity(running.length)); }
+            running[runningCount++] = HANDLE;
+            columns.state(HANDLE, (byte) (RUNNING | LISTED));
+        }
+    }
+
+    // Must be called before a new handle is added to the running list
+    private void lowerNextDeadline(final long DEADLINE) {
+        if (0 == runningCount || DEADLINE - nextDeadline < 0) { nextDeadline = DEADLINE; }
+        if (!moved || DEADLINE - movedDeadline < 0) {
+            movedDeadline = DEADLINE;
+            moved         = true;
+        }
+    }
+
+    // Keeps the LISTED flag, the handle will be removed from the running list with the next update
+    private void setState(final int HANDLE, final byte STATE) {
+        columns.state(HANDLE, (byte) (STATE | (columns.state(HANDLE) & LISTED)));
+    }
+
+    private int stateOf(final int HANDLE) { return columns.state(HANDLE) & STATE_MASK; }
+
+    private int check(final int HANDLE) {
+        if (HANDLE < 0 || HANDLE >= allocated || FREE == stateOf(HANDLE)) { throw new IllegalArgumentException("Invalid handle " + HANDLE); }
+        return HANDLE;
+    }
+
+    private void fire(final int HANDLE, final Type TYPE) { if (null != listener) { listener.onTimerEvent(HANDLE, TYPE); } }
+
+    private static int growCapacity(final int CAPACITY) {
+        if (CAPACITY == Integer.MAX_VALUE - 8) { throw new IllegalStateException("Store is full"); }
+        return (int) Math.min(Integer.MAX_VALUE - 8, CAPACITY + (CAPACITY >> 1) + 1L);
+    }
+
+
+    // ******************** Inner Classes *************************************
+    private static abstract class Columns {
+        abstract int capacity();
+        abstract void grow(final int CAPACITY);
+        abstract byte state(final int HANDLE);
+        abstract void state(final int HANDLE, final byte STATE);
+        abstract int duration(final int HANDLE);
+        abstract void duration(final int HANDLE, final int DURATION);
+        abstract long deadline(final int HANDLE);
+        abstract void deadline(final int HANDLE, final long DEADLINE);
+        abstract long elapsed(final int HANDLE);
+        abstract void elapsed(final int HANDLE, final long ELAPSED);
+    }
+
+    private static final class HeapColumns extends Columns {
+        private byte[] states;
+        private int[]  durations;
+        private long[] deadlines;
+        private long[] elapsed;
+
+
+        HeapColumns(final int CAPACITY) {
+            states    = new byte[CAPACITY];
+            durations = new int[CAPACITY];
+            deadlines = new long[CAPACITY];
+            elapsed   = new long[CAPACITY];
+        }
+
+        @Override int capacity() { return states.length; }
+        @Override void grow(final int CAPACITY) {
+            states    = Arrays.copyOf(states, CAPACITY);
+            durations = Arrays.copyOf(durations, CAPACITY);
+            deadlines = Arrays.copyOf(deadlines, CAPACITY);
+            elapsed   = Arrays.copyOf(elapsed, CAPACITY);
+        }
+        @Override byte state(final int HANDLE) { return states[HANDLE]; }
+        @Override void state(final int HANDLE, final byte STATE) { states[HANDLE] = STATE; }
+        @Override int duration(final int HANDLE) { return durations[HANDLE]; }
+        @Override void duration(final int HANDLE, final int DURATION) { durations[HANDLE] = DURATION; }
+        @Override long deadline(final int HANDLE) { return deadlines[HANDLE]; }
+        @Override void deadline(final int HANDLE, final long DEADLINE) { deadlines[HANDLE] = DEADLINE; }
+        @Override long elapsed(final int HANDLE) { return elapsed[HANDLE]; }
+        @Override void elapsed(final int HANDLE, final long ELAPSED) { elapsed[HANDLE] = ELAPSED; }
+    }
+
+    private static final class DirectColumns extends Columns {
+        private int        capacity;
+        private ByteBuffer states;
+        private IntBuffer  durations;
+        private LongBuffer deadlines;
+        private LongBuffer elapsed;
+
+
+        DirectColumns(final int CAPACITY) {
+            capacity  = CAPACITY;
+            states    = ByteBuffer.allocateDirect(CAPACITY);
+            durations = allocate(CAPACITY, Integer.BYTES).asIntBuffer();
+            deadlines = allocate(CAPACITY, Long.BYTES).asLongBuffer();
+            elapsed   = allocate(CAPACITY, Long.BYTES).asLongBuffer();
+        }
+
+        @Override int capacity() { return capacity; }
+        @Override void grow(final int CAPACITY) {
+            final ByteBuffer STATES    = ByteBuffer.allocateDirect(CAPACITY);
+            final IntBuffer  DURATIONS = allocate(CAPACITY, Integer.BYTES).asIntBuffer();
+            final LongBuffer DEADLINES = allocate(CAPACITY, Long.BYTES).asLongBuffer();
+            final LongBuffer ELAPSED   = allocate(CAPACITY, Long.BYTES).asLongBuffer();
+            states.clear();
+            durations.clear();
+            deadlines.clear();
+            elapsed.clear();
+            STATES.put(states).clear();
+            DURATIONS.put(durations).clear();
+            DEADLINES.put(deadlines).clear();
+            ELAPSED.put(elapsed).clear();
+            capacity  = CAPACITY;
+            states    = STATES;
+            durations = DURATIONS;
+            deadlines = DEADLINES;
+            elapsed   = ELAPSED;
+        }
+        @Override byte state(final int HANDLE) { return states.get(HANDLE); }
+        @Override void state(final int HANDLE, final byte STATE) { states.put(HANDLE, STATE); }
+        @Override int duration(final int HANDLE) { return durations.get(HANDLE); }
+        @Override void duration(final int HANDLE, final int DURATION) { durations.put(HANDLE, DURATION); }
+        @Override long deadline(final int HANDLE) { return deadlines.get(HANDLE); }
+        @Override void deadline(final int HANDLE, final long DEADLINE) { deadlines.put(HANDLE, DEADLINE); }
+        @Override long elapsed(final int HANDLE) { return elapsed.get(HANDLE); }
+        @Override void elapsed(final int HANDLE, final long ELAPSED) { elapsed.put(HANDLE, ELAPSED); }
+
+        private static ByteBuffer allocate(final int CAPACITY, final int BYTES) {
+            if ((long) CAPACITY * BYTES > Integer.MAX_VALUE) { throw new IllegalStateException("Store is full"); }
+            return ByteBuffer.allocateDirect(CAPACITY * BYTES).order(ByteOrder.nativeOrder());
+        }
+    }
+}
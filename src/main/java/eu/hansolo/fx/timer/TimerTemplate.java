@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import javafx.beans.property.Property;
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Insets;
+import javafx.scene.paint.Color;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+
+/**
+ * Immutable, typed snapshot of the settings of a TimerBuilder.
+ * The settings are looked up once when the template is compiled,
+ * creating a Timer only applies the fields that have been set.
+ * Unset doubles are stored as NaN, unset objects as null.
+ */
+public final class TimerTemplate {
+    private final Dimension2D         prefSize;
+    private final Dimension2D         minSize;
+    private final Dimension2D         maxSize;
+    private final double              prefWidth;
+    private final double              prefHeight;
+    private final double              minWidth;
+    private final double              minHeight;
+    private final double              maxWidth;
+    private final double              maxHeight;
+    private final double              scaleX;
+    private final double              scaleY;
+    private final double              layoutX;
+    private final double              layoutY;
+    private final double              translateX;
+    private final double              translateY;
+    private final Insets              padding;
+    private final String[]            styleClass;
+    private final Color               backgroundColor;
+    private final Color               color;
+    private final Color               waitingColor;
+    private final Boolean             playButtonVisible;
+    private final Duration            duration;
+    private final TimerProgram        program;
+    private final Duration            tickInterval;
+    private final TimerModel.Precision precision;
+    private final Timer.UpdateMode    updateMode;
+    private final Timer.RenderMode    renderMode;
+    private final double              maxUpdateRate;
+    private final double              waitingFrameRate;
+
+
+    // ******************** Constructors **************************************
+    TimerTemplate(final Map<String, Property<?>> PROPERTIES) {
+        prefSize          = get(PROPERTIES, "prefSize");
+        minSize           = get(PROPERTIES, "minSize");
+        maxSize           = get(PROPERTIES, "maxSize");
+        prefWidth         = getDouble(PROPERTIES, "prefWidth");
+        prefHeight        = getDouble(PROPERTIES, "prefHeight");
+        minWidth          = getDouble(PROPERTIES, "minWidth");
+        minHeight         = getDouble(PROPERTIES, "minHeight");
+        maxWidth          = getDouble(PROPERTIES, "maxWidth");
+        maxHeight         = getDouble(PROPERTIES, "maxHeight");
+        scaleX            = getDouble(PROPERTIES, "scaleX");
+        scaleY            = getDouble(PROPERTIES, "scaleY");
+        layoutX           = getDouble(PROPERTIES, "layoutX");
+        layoutY           = getDouble(PROPERTIES, "layoutY");
+        translateX        = getDouble(PROPERTIES, "translateX");
+        translateY        = getDouble(PROPERTIES, "translateY");
+        padding           = get(PROPERTIES, "padding");
+        final String[] STYLE_CLASS = get(PROPERTIES, "styleClass");
+        styleClass        = null == STYLE_CLASS ? null : STYLE_CLASS.clone();
+        backgroundColor   = get(PROPERTIES, "backgroundColor");
+        color             = get(PROPERTIES, "color");
+        waitingColor      = get(PROPERTIES, "waitingColor");
+        playButtonVisible = get(PROPERTIES, "playButtonVisible");
+        duration          = get(PROPERTIES, "duration");
+        program           = get(PROPERTIES, "program");
+        tickInterval      = get(PROPERTIES, "tickInterval");
+        precision         = get(PROPERTIES, "precision");
+        updateMode        = get(PROPERTIES, "updateMode");
+        renderMode        = get(PROPERTIES, "renderMode");
+        maxUpdateRate     = getDouble(PROPERTIES, "maxUpdateRate");
+        waitingFrameRate  = getDouble(PROPERTIES, "waitingFrameRate");
+    }
+
+
+    // ******************** Methods *******************************************
+    public Timer create() {
+        final Timer CONTROL = new Timer();
+        if (null != prefSize) { CONTROL.setPrefSize(prefSize.getWidth(), prefSize.getHeight()); }
+        if (null != minSize) { CONTROL.setMinSize(minSize.getWidth(), minSize.getHeight()); }
+        if (null != maxSize) { CONTROL.setMaxSize(maxSize.getWidth(), maxSize.getHeight()); }
+        if (!Double.isNaN(prefWidth)) { CONTROL.setPrefWidth(prefWidth); }
+        if (!Double.isNaN(prefHeight)) { CONTROL.setPrefHeight(prefHeight); }
+        if (!Double.isNaN(minWidth)) { CONTROL.setMinWidth(minWidth); }
+        if (!Double.isNaN(minHeight)) { CONTROL.setMinHeight(minHeight); }
+        if (!Double.isNaN(maxWidth)) { CONTROL.setMaxWidth(maxWidth); }
+        if (!Double.isNaN(maxHeight)) { CONTROL.setMaxHeight(maxHeight); }
+        if (!Double.isNaN(scaleX)) { CONTROL.setScaleX(scaleX); }
+        if (!Double.isNaN(scaleY)) { CONTROL.setScaleY(scaleY); }
+        if (!Double.isNaN(layoutX)) { CONTROL.setLayoutX(layoutX); }
+        if (!Double.isNaN(layoutY)) { CONTROL.setLayoutY(layoutY); }
+        if (!Double.isNaN(translateX)) { CONTROL.setTranslateX(translateX); }
+        if (!Double.isNaN(translateY)) { CONTROL.setTranslateY(translateY); }
+        if (null != padding) { CONTROL.setPadding(padding); }
+        if (null != styleClass) {
+            CONTROL.getStyleClass().setAll("timer");
+            CONTROL.getStyleClass().addAll(styleClass);
+        }
+        if (null != backgroundColor) { CONTROL.setBackgroundColor(backgroundColor); }
+        if (null != color) { CONTROL.setColor(color); }
+        if (null != waitingColor) { CONTROL.setWaitingColor(waitingColor); }
+        if (null != playButtonVisible) { CONTROL.setPlayButtonVisible(playButtonVisible); }
+        if (null != duration) { CONTROL.setDuration(duration); }
+        if (null != program) { CONTROL.setProgram(program); }
+        if (null != tickInterval) { CONTROL.setTickInterval(tickInterval); }
+        if (null != precision) { CONTROL.setPrecision(precision); }
+        if (null != updateMode) { CONTROL.setUpdateMode(updateMode); }
+        if (null != renderMode) { CONTROL.setRenderMode(renderMode); }
+        if (!Double.isNaN(maxUpdateRate)) { CONTROL.setMaxUpdateRate(maxUpdateRate); }
+        if (!Double.isNaN(waitingFrameRate)) { CONTROL.setWaitingFrameRate(waitingFrameRate); }
+        return CONTROL;
+    }
+
+    public List<Timer> create(final int COUNT) {
+        final List<Timer> TIMERS = new ArrayList<>(COUNT);
+        for (int i = 0 ; i < COUNT ; i++) { TIMERS.add(create()); }
+        return TIMERS;
+    }
+
+    /**
+     * @return an infinite stream of configured timers, use limit() to define the number
+     */
+    public Stream<Timer> stream() { return Stream.generate(this::create); }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T get(final Map<String, Property<?>> PROPERTIES, final String KEY) {
+        final Property<?> PROPERTY = PROPERTIES.get(KEY);
+        return null == PROPERTY ? null : (T) PROPERTY.getValue();
+    }
+
+    private static double getDouble(final Map<String, Property<?>> PROPERTIES, final String KEY) {
+        final Property<?> PROPERTY = PROPERTIES.get(KEY);
+        return null == PROPERTY ? Double.NaN : ((Number) PROPERTY.getValue()).doubleValue();
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+/**
+ * Hierarchical timing wheel that drives a large number of headless
+ * TimerModels. Each attached model is scheduled at its next deadline,
+ * which is either the next SECOND boundary or the FINISHED deadline.
+ * Calling advance() only touches the models that are due, so the cost
+ * per tick depends on the number of due events and not on the number
+ * of attached models.
+ * The wheel has 6 levels with 64 slots each which covers more than two
+ * years with the default tick of 1 ms. Models with a later deadline are
+ * parked in the last slot and rescheduled when they get there.
+ * The wheel and all attached models must be confined to one thread and
+ * use the same clock as the wheel, e.g. a ManualTimerClock to simulate a
+ * large number of timers in virtual time.
+ */
+public class TimingWheel {
+    public  static final long       DEFAULT_TICK_NANOS = 1_000_000L;
+    private static final int        SLOT_BITS          = 6;
+    private static final int        SLOTS              = 1 << SLOT_BITS;
+    private static final int        SLOT_MASK          = SLOTS - 1;
+    private static final int        LEVELS             = 6;
+    private static final int        UNSCHEDULED        = -1;
+    private static final int        PENDING            = -2;
+    private        final long       tickNanos;
+    private        final long       originNanos;
+    private        final TimerClock clock;
+    private        final Entry[]    slots;
+    private              Entry      pending;
+    private              Runnable   onScheduled;
+    private              long       currentTick;
+    private              int        size;
+    private              int        scheduled;
+
+
+    // ******************** Constructors **************************************
+    public TimingWheel() {
+        this(DEFAULT_TICK_NANOS);
+    }
+    public TimingWheel(final long TICK_NANOS) {
+        this(TICK_NANOS, TimerClock.SYSTEM);
+    }
+    public TimingWheel(final long TICK_NANOS, final TimerClock CLOCK) {
+        if (TICK_NANOS <= 0) { throw new IllegalArgumentException("Tick must be positive"); }
+        if (null == CLOCK) { throw new IllegalArgumentException("Clock cannot be null"); }
+        tickNanos   = TICK_NANOS;
+        clock       = CLOCK;
+        originNanos = CLOCK.nanoTime();
+        slots       = new Entry[LEVELS * SLOTS];
+        currentTick = 0;
+        size        = 0;
+        scheduled   = 0;
+    }
+
+
+    // ******************** Methods *******************************************
+    public long getTickNanos() { return tickNanos; }
+
+    /**
+     * @return the number of attached models
+     */
+    public int size() { return size; }
+
+    /**
+     * @return the number of attached models that wait for their next deadline
+     */
+    public int getScheduledCount() { return scheduled; }
+
+    /**
+     * Defines a callback that is called when a model gets scheduled while
+     * no other model was waiting, e.g. to start pulsing the wheel again.
+     */
+    void setOnScheduled(final Runnable CALLBACK) { onScheduled = CALLBACK; }
+
+    public void add(final TimerModel MODEL) {
+        if (null != MODEL.wheelEntry) {
+            if (MODEL.wheelEntry.wheel == this) { return; }
+            MODEL.wheelEntry.wheel.remove(MODEL);
+        }
+        MODEL.wheelEntry = new Entry(TimingWheel.this, MODEL);
+        size++;
+        reschedule(MODEL.wheelEntry);
+    }
+
+    public void remove(final TimerModel MODEL) {
+        final Entry ENTRY = MODEL.wheelEntry;
+        if (null == ENTRY || ENTRY.wheel != this) { return; }
+        unlink(ENTRY);
+        MODEL.wheelEntry = null;
+        size--;
+    }
+
+    public TimerClock getClock() { return clock; }
+
+    public int advance() { return advance(clock.nanoTime()); }
+    /**
+     * Processes all ticks up to the given time and updates every model
+     * whose deadline has passed, which fires its SECOND and FINISHED events.
+     * @param NOW the current time of the clock of the wheel
+     * @return the number of models that have been updated
+     */
+    public int advance(final long NOW) {
+        final long TARGET = (NOW - originNanos) / tickNanos;
+        if (0 == scheduled) {
+            if (TARGET > currentTick) { currentTick = TARGET; }
+            return 0;
+        }
+        int fired = 0;
+        while (currentTick < TARGET) {
+            currentTick++;
+            cascade(1);
+            fired += fire(slotIndex(0, currentTick), NOW);
+        }
+        return fired;
+    }
+
+    // Called by the model whenever its state changed
+    void reschedule(final Entry ENTRY) {
+        unlink(ENTRY);
+        final long DEADLINE = ENTRY.model.getNextDeadlineNanos();
+        if (Long.MAX_VALUE == DEADLINE) { return; }
+        // Round up to never fire before the deadline
+        final long DUE = (DEADLINE - originNanos + tickNanos - 1) / tickNanos;
+        place(ENTRY, DUE > currentTick ? DUE : currentTick + 1);
+        if (1 == scheduled && null != onScheduled) { onScheduled.run(); }
+    }
+
+    private void cascade(final int LEVEL) {
+        if (LEVEL == LEVELS || 0 != (currentTick & ((1L << (SLOT_BITS * LEVEL)) - 1))) { return; }
+        // Cascade higher levels first so that their entries can move down to this one
+        cascade(LEVEL + 1);
+        final int INDEX = slotIndex(LEVEL, currentTick);
+        Entry     entry = slots[INDEX];
+        slots[INDEX] = null;
+        while (null != entry) {
+            final Entry NEXT = entry.next;
+            entry.slot = UNSCHEDULED;
+            entry.prev = null;
+            entry.next = null;
+            scheduled--;
+            place(entry, entry.due);
+            entry = NEXT;
+        }
+    }
+
+    private int fire(final int INDEX, final long NOW) {
+        // Detach the slot so that listeners can safely stop or reschedule other models
+        pending = slots[INDEX];
+        slots[INDEX] = null;
+        for (Entry entry = pending ; null != entry ; entry = entry.next) { entry.slot = PENDING; }
+        int fired = 0;
+        while (null != pending) {
+            final Entry ENTRY = pending;
+            unlink(ENTRY);
+            ENTRY.model.update(NOW);
+            fired++;
+            // The model might have been removed by a listener
+            if (ENTRY.model.wheelEntry == ENTRY && UNSCHEDULED == ENTRY.slot) { reschedule(ENTRY); }
+        }
+        return fired;
+    }
+
+    private void place(final Entry ENTRY, final long DUE) {
+        final long DELTA = DUE - currentTick;
+        int        level = 0;
+        while (level < LEVELS - 1 && DELTA >= 1L << (SLOT_BITS * (level + 1))) { level++; }
+        // Deadlines beyond the wheel are parked in the last reachable slot of the top level
+        final long TICK  = level == LEVELS - 1 && DELTA >= 1L << (SLOT_BITS * LEVELS) ? currentTick + (SLOT_MASK << (SLOT_BITS * level)) : DUE;
+        final int  INDEX = slotIndex(level, TICK);
+        ENTRY.due  = DUE;
+        ENTRY.slot = INDEX;
+        ENTRY.prev = null;
+        ENTRY.next = slots[INDEX];
+        if (null != ENTRY.next) { ENTRY.next.prev = ENTRY; }
+        slots[INDEX] = ENTRY;
+        scheduled++;
+    }
+
+    private void unlink(final Entry ENTRY) {
+        if (UNSCHEDULED == ENTRY.slot) { return; }
+        if (null != ENTRY.prev) {
+            ENTRY.prev.next = ENTRY.next;
+        } else if (PENDING == ENTRY.slot) {
+            pending = ENTRY.next;
+        } else {
+            slots[ENTRY.slot] = ENTRY.next;
+        }
+        if (null != ENTRY.next) { ENTRY.next.prev = ENTRY.prev; }
+        ENTRY.prev = null;
+        ENTRY.next = null;
+        ENTRY.slot = UNSCHEDULED;
+        scheduled--;
+    }
+
+    private static int slotIndex(final int LEVEL, final long TICK) {
+        return LEVEL * SLOTS + (int) ((TICK >>> (SLOT_BITS * LEVEL)) & SLOT_MASK);
+    }
+
+
+    // ******************** Inner Classes *************************************
+    static final class Entry {
+        private final TimingWheel wheel;
+        private final TimerModel  model;
+        private       Entry       prev;
+        private       Entry       next;
+        private       long        due;
+        private       int         slot;
+
+
+        Entry(final TimingWheel WHEEL, final TimerModel MODEL) {
+            wheel = WHEEL;
+            model = MODEL;
+            slot  = UNSCHEDULED;
+        }
+
+        void reschedule() { wheel.reschedule(Entry.this); }
+    }
+}
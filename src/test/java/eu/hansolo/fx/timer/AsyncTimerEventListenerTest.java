@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.AsyncTimerEventListener.OverflowPolicy;
+import eu.hansolo.fx.timer.TimerEvent.Type;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class AsyncTimerEventListenerTest {
+
+    @Test public void throwingDelegateDoesNotStopDelivery() {
+        final Thread.UncaughtExceptionHandler HANDLER   = Thread.getDefaultUncaughtExceptionHandler();
+        final AtomicReference<Throwable>      REPORTED  = new AtomicReference<>();
+        final List<Type>                      DELIVERED = new ArrayList<>();
+        final ManualExecutor                  EXECUTOR  = new ManualExecutor();
+        final AsyncTimerEventListener         LISTENER  = new AsyncTimerEventListener(e -> {
+            DELIVERED.add(e.getType());
+            if (Type.STARTED == e.getType()) { throw new IllegalStateException("Listener failed"); }
+        }, EXECUTOR);
+        final TimerModel MODEL = new TimerModel();
+        Thread.setDefaultUncaughtExceptionHandler((thread, t) -> REPORTED.set(t));
+        try {
+            LISTENER.onTimerEvent(new TimerEvent(MODEL, Type.STARTED));
+            LISTENER.onTimerEvent(new TimerEvent(MODEL, Type.SECOND));
+            EXECUTOR.runAll();
+            assertEquals("Listener failed", REPORTED.get().getMessage());
+
+            LISTENER.onTimerEvent(new TimerEvent(MODEL, Type.FINISHED));
+            EXECUTOR.runAll();
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(HANDLER);
+        }
+        assertEquals(3, DELIVERED.size());
+        assertEquals(Type.FINISHED, DELIVERED.get(2));
+    }
+
+    @Test public void secondIsOnlyCoalescedWhenQueueIsFull() {
+        final ManualExecutor          EXECUTOR = new ManualExecutor();
+        final List<TimerEvent>        EVENTS   = new ArrayList<>();
+        final AsyncTimerEventListener LISTENER = new AsyncTimerEventListener(EVENTS::add, EXECUTOR, 2, OverflowPolicy.COALESCE_SECOND);
+        final TimerModel              MODEL    = new TimerModel();
+        LISTENER.onTimerEvent(new TimerEvent(MODEL, Type.SECOND));
+        LISTENER.onTimerEvent(new TimerEvent(MODEL, Type.SECOND));
+        assertEquals(2, LISTENER.getQueueSize());
+        assertEquals(0, LISTENER.getCoalescedCount());
+
+        LISTENER.onTimerEvent(new TimerEvent(MODEL, Type.SECOND));
+        assertEquals(2, LISTENER.getQueueSize());
+        assertEquals(1, LISTENER.getCoalescedCount());
+        assertEquals(0, LISTENER.getDroppedCount());
+
+        LISTENER.onTimerEvent(new TimerEvent(MODEL, Type.FINISHED));
+        assertEquals(1, LISTENER.getDroppedCount());
+        EXECUTOR.runAll();
+        assertEquals(2, EVENTS.size());
+        assertEquals(Type.FINISHED, EVENTS.get(1).getType());
+    }
+
+    @Test public void blockingProducerDoesNotDeadlockDelegateCallingModel() throws Exception {
+        final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+        try {
+            final TimerModel MODEL     = new TimerModel();
+            final List<Type> DELIVERED = new ArrayList<>();
+            MODEL.addTimerEventListener(e -> {
+                MODEL.getPrecision();
+                synchronized (DELIVERED) { DELIVERED.add(e.getType()); }
+            }, EXECUTOR, 1, OverflowPolicy.BLOCK);
+
+            final Thread PRODUCER = new Thread(() -> {
+                for (int i = 0 ; i < 100 ; i++) {
+                    MODEL.start();
+                    MODEL.stop();
+                }
+            });
+            PRODUCER.setDaemon(true);
+            PRODUCER.start();
+            PRODUCER.join(TimeUnit.SECONDS.toMillis(5));
+            assertFalse("Producer and delegate deadlocked", PRODUCER.isAlive());
+            EXECUTOR.shutdown();
+            assertTrue(EXECUTOR.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(200, DELIVERED.size());
+        } finally {
+            EXECUTOR.shutdownNow();
+        }
+    }
+
+    @Test public void blockNeverWaitsOnFxApplicationThread() {
+        FxToolkit.start();
+        final ManualExecutor          EXECUTOR = new ManualExecutor();
+        final AsyncTimerEventListener LISTENER = new AsyncTimerEventListener(e -> {}, EXECUTOR, 1, OverflowPolicy.BLOCK);
+        final TimerModel              MODEL    = new TimerModel();
+        FxToolkit.runAndWait(() -> {
+            LISTENER.onTimerEvent(new TimerEvent(MODEL, Type.STARTED));
+            LISTENER.onTimerEvent(new TimerEvent(MODEL, Type.SECOND));
+            LISTENER.onTimerEvent(new TimerEvent(MODEL, Type.FINISHED));
+        });
+        assertEquals(1, LISTENER.getQueueSize());
+        assertEquals(2, LISTENER.getDroppedCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void timerRejectsBlock() {
+        FxToolkit.start();
+        new Timer().addTimerEventListener(e -> {}, Runnable::run, 1, OverflowPolicy.BLOCK);
+    }
+
+
+    // ******************** Inner Classes *************************************
+    private static final class ManualExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override public void execute(final Runnable TASK) { tasks.add(TASK); }
+
+        void runAll() { while (!tasks.isEmpty()) { tasks.poll().run(); } }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import com.sun.javafx.application.PlatformImpl;
+import javafx.application.Platform;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+
+
+/**
+ * Starts the FX toolkit once per JVM without an Application and runs
+ * code on the FX application thread. The tests and benchmarks run with the
+ * headless Monocle glass platform, so no display is needed.
+ */
+final class FxToolkit {
+    private static boolean started;
+
+
+    // ******************** Constructors **************************************
+    private FxToolkit() {}
+
+
+    // ******************** Methods *******************************************
+    static synchronized void start() {
+        if (started) { return; }
+        final CountDownLatch LATCH = new CountDownLatch(1);
+        PlatformImpl.startup(LATCH::countDown);
+        Platform.setImplicitExit(false);
+        try {
+            LATCH.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while starting the FX toolkit", e);
+        }
+        started = true;
+    }
+
+    static void runAndWait(final Runnable RUNNABLE) {
+        if (Platform.isFxApplicationThread()) {
+            RUNNABLE.run();
+            return;
+        }
+        final FutureTask<Void> TASK = new FutureTask<>(RUNNABLE, null);
+        Platform.runLater(TASK);
+        try {
+            TASK.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.TimerEvent.Type;
+import eu.hansolo.fx.timer.TimerModel.Precision;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+
+public class PrecisionSchedulerTest {
+
+    @Test public void startStopCyclesKeepOneDeadlinePerModel() {
+        final TimerModel MODEL = new TimerModel();
+        MODEL.setPrecision(Precision.FINISHED);
+        MODEL.setDurationNanos(TimeUnit.MINUTES.toNanos(1));
+        for (int i = 0 ; i < 100_000 ; i++) {
+            MODEL.start();
+            MODEL.stop();
+        }
+        MODEL.start();
+        assertTrue(PrecisionScheduler.getInstance().getQueueSize() <= 2);
+        MODEL.stop();
+    }
+
+    @Test public void throwingListenerDoesNotStopScheduler() throws Exception {
+        final Thread.UncaughtExceptionHandler HANDLER  = Thread.getDefaultUncaughtExceptionHandler();
+        final AtomicReference<Throwable>      REPORTED = new AtomicReference<>();
+        Thread.setDefaultUncaughtExceptionHandler((thread, t) -> REPORTED.set(t));
+        try {
+            final TimerModel FAILING = new TimerModel();
+            FAILING.setPrecision(Precision.FINISHED);
+            FAILING.setDurationNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            FAILING.addTimerEventListener(EnumSet.of(Type.FINISHED), e -> { throw new IllegalStateException("Listener failed"); });
+
+            final CountDownLatch FINISHED = new CountDownLatch(1);
+            final TimerModel     MODEL    = new TimerModel();
+            MODEL.setPrecision(Precision.FINISHED);
+            MODEL.setDurationNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            MODEL.addTimerEventListener(EnumSet.of(Type.FINISHED), e -> FINISHED.countDown());
+
+            FAILING.start();
+            MODEL.start();
+            assertTrue("Deadline after the failing listener was not delivered", FINISHED.await(2, TimeUnit.SECONDS));
+            assertEquals("Listener failed", REPORTED.get().getMessage());
+            assertEquals(Timer.State.STOPPED, FAILING.getState());
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(HANDLER);
+        }
+    }
+
+    @Test public void slowListenerDoesNotBlockUpdate() throws Exception {
+        final CountDownLatch ENTERED = new CountDownLatch(1);
+        final CountDownLatch RELEASE = new CountDownLatch(1);
+        final TimerModel     MODEL   = new TimerModel();
+        MODEL.setPrecision(Precision.FINISHED);
+        MODEL.setDurationNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        MODEL.addTimerEventListener(EnumSet.of(Type.FINISHED), e -> {
+            ENTERED.countDown();
+            try {
+                RELEASE.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        MODEL.start();
+        assertTrue(ENTERED.await(2, TimeUnit.SECONDS));
+        try {
+            final long START = System.nanoTime();
+            MODEL.update();
+            MODEL.getPrecision();
+            assertTrue("update() waited for the listener on the scheduler thread", System.nanoTime() - START < TimeUnit.MILLISECONDS.toNanos(200));
+        } finally {
+            RELEASE.countDown();
+        }
+    }
+
+    @Test public void nestedEventOfTheSameTypeKeepsOuterEvent() throws Exception {
+        final TimerModel       MODEL  = new TimerModel();
+        final List<TimerEvent> EVENTS = new ArrayList<>();
+        final List<Long>       OUTER  = new ArrayList<>();
+        MODEL.addTimerEventListener(EnumSet.of(Type.STOPPED), e -> {
+            EVENTS.add(e);
+            if (1 == EVENTS.size()) {
+                final long ELAPSED = e.getElapsedNanos();
+                MODEL.start();
+                MODEL.stop();
+                OUTER.add(ELAPSED);
+                OUTER.add(e.getElapsedNanos());
+            }
+        });
+        MODEL.start();
+        Thread.sleep(20);
+        MODEL.stop();
+
+        assertEquals(2, EVENTS.size());
+        assertNotSame(EVENTS.get(0), EVENTS.get(1));
+        assertEquals(OUTER.get(0), OUTER.get(1));
+        assertTrue(EVENTS.get(1).getElapsedNanos() < EVENTS.get(0).getElapsedNanos());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.UpdateMode;
+import eu.hansolo.fx.timer.TimerModel.Precision;
+import javafx.geometry.Insets;
+import javafx.scene.paint.Color;
+import javafx.util.Duration;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+
+
+public class TimerBuilderTest {
+
+    @Test public void buildManyAppliesEveryProperty() {
+        final TimerBuilder<?> BUILDER = TimerBuilder.create()
+                                                    .backgroundColor(Color.BLACK)
+                                                    .color(Color.RED)
+                                                    .waitingColor(Color.GRAY)
+                                                    .playButtonVisible(false)
+                                                    .duration(Duration.seconds(30))
+                                                    .tickInterval(Duration.millis(100))
+                                                    .precision(Precision.FINISHED)
+                                                    .updateMode(UpdateMode.PIXEL)
+                                                    .maxUpdateRate(10)
+                                                    .prefSize(38, 38)
+                                                    .minSize(20, 20)
+                                                    .maxSize(100, 100)
+                                                    .scaleX(2)
+                                                    .scaleY(3)
+                                                    .layoutX(4)
+                                                    .layoutY(5)
+                                                    .translateX(6)
+                                                    .translateY(7)
+                                                    .padding(new Insets(1));
+        final List<Timer> TIMERS = BUILDER.buildMany(3);
+        assertEquals(3, TIMERS.size());
+        assertNotSame(TIMERS.get(0), TIMERS.get(1));
+        assertNotSame(TIMERS.get(0).getModel(), TIMERS.get(1).getModel());
+        for (Timer timer : TIMERS) {
+            assertEquals(Color.BLACK, timer.getBackgroundColor());
+            assertEquals(Color.RED, timer.getColor());
+            assertEquals(Color.GRAY, timer.getWaitingColor());
+            assertFalse(timer.isPlayButtonVisible());
+            assertEquals(Duration.seconds(30), timer.getDuration());
+            assertEquals(Duration.millis(100), timer.getTickInterval());
+            assertEquals(Precision.FINISHED, timer.getPrecision());
+            assertEquals(UpdateMode.PIXEL, timer.getUpdateMode());
+            assertEquals(10, timer.getMaxUpdateRate(), 0);
+            assertEquals(38, timer.getPrefWidth(), 0);
+            assertEquals(38, timer.getPrefHeight(), 0);
+            assertEquals(20, timer.getMinWidth(), 0);
+            assertEquals(20, timer.getMinHeight(), 0);
+            assertEquals(100, timer.getMaxWidth(), 0);
+            assertEquals(100, timer.getMaxHeight(), 0);
+            assertEquals(2, timer.getScaleX(), 0);
+            assertEquals(3, timer.getScaleY(), 0);
+            assertEquals(4, timer.getLayoutX(), 0);
+            assertEquals(5, timer.getLayoutY(), 0);
+            assertEquals(6, timer.getTranslateX(), 0);
+            assertEquals(7, timer.getTranslateY(), 0);
+            assertEquals(new Insets(1), timer.getPadding());
+        }
+    }
+
+    @Test public void changesAfterCompileOnlyAffectLaterTimers() {
+        final TimerBuilder<?> BUILDER = TimerBuilder.create().color(Color.RED);
+        final TimerTemplate   RED     = BUILDER.compile();
+        BUILDER.color(Color.GREEN);
+        assertEquals(Color.RED, RED.create().getColor());
+        assertEquals(Color.GREEN, BUILDER.build().getColor());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import eu.hansolo.fx.timer.TimerEvent.Type;
+import javafx.application.Platform;
+import javafx.util.Duration;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class TimerCommandsTest {
+    private static final int THREADS    = 4;
+    private static final int PER_THREAD = 250;
+
+
+    @BeforeClass public static void startToolkit() { FxToolkit.start(); }
+
+    @Test public void lastCommandOfEveryTimerWins() throws Exception {
+        final List<Timer>  TIMERS  = timers(THREADS * PER_THREAD);
+        final List<Thread> WORKERS = new ArrayList<>();
+        for (int t = 0 ; t < THREADS ; t++) {
+            final List<Timer> OWN    = TIMERS.subList(t * PER_THREAD, (t + 1) * PER_THREAD);
+            final Thread      WORKER = new Thread(() -> {
+                for (int i = 0 ; i < OWN.size() ; i++) {
+                    final Timer TIMER = OWN.get(i);
+                    TIMER.setDurationLater(Duration.seconds(5));
+                    TIMER.startLater();
+                    TIMER.stopLater();
+                    if (0 == i % 2) { TIMER.waitingLater(); } else { TIMER.startLater(); }
+                }
+            });
+            WORKERS.add(WORKER);
+            WORKER.start();
+        }
+        for (Thread worker : WORKERS) { worker.join(); }
+        // Runs after the drains that have been posted by the workers
+        FxToolkit.runAndWait(() -> {});
+        for (int i = 0 ; i < TIMERS.size() ; i++) {
+            final Timer TIMER = TIMERS.get(i);
+            assertEquals(0 == i % 2 ? State.WAITING : State.RUNNING, TIMER.getState());
+            assertEquals(Duration.seconds(5), TIMER.getDuration());
+        }
+        FxToolkit.runAndWait(() -> TIMERS.forEach(Timer::stop));
+    }
+
+    @Test public void supersededCommandsAreNeverApplied() throws Exception {
+        final List<Timer>    TIMERS  = timers(PER_THREAD);
+        final AtomicInteger  STARTED = new AtomicInteger();
+        final CountDownLatch BLOCKED = new CountDownLatch(1);
+        final CountDownLatch RELEASE = new CountDownLatch(1);
+        TIMERS.forEach(timer -> timer.addTimerEventListener(EnumSet.of(Type.STARTED), e -> STARTED.incrementAndGet()));
+        // Keeps the FX application thread busy so that all commands are pending
+        Platform.runLater(() -> {
+            BLOCKED.countDown();
+            try {
+                RELEASE.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(BLOCKED.await(2, TimeUnit.SECONDS));
+        for (Timer timer : TIMERS) {
+            timer.startLater();
+            timer.resetLater();
+        }
+        RELEASE.countDown();
+        FxToolkit.runAndWait(() -> {});
+        assertEquals(0, STARTED.get());
+        for (Timer timer : TIMERS) { assertEquals(State.STOPPED, timer.getState()); }
+    }
+
+
+    private static List<Timer> timers(final int COUNT) {
+        final List<Timer> TIMERS = new ArrayList<>(COUNT);
+        FxToolkit.runAndWait(() -> { for (int i = 0 ; i < COUNT ; i++) { TIMERS.add(new Timer()); } });
+        return TIMERS;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import javafx.util.Duration;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class TimerEngineTest {
+
+    @BeforeClass public static void startToolkit() { FxToolkit.start(); }
+
+    @Test public void clientsArePulsedUntilTheyReturnFalse() throws Exception {
+        final TimerEngine   ENGINE = TimerEngine.getInstance();
+        final AtomicInteger PULSES = new AtomicInteger();
+        FxToolkit.runAndWait(() -> {
+            final int COUNT = ENGINE.getClientCount();
+            ENGINE.add(NOW -> PULSES.incrementAndGet() < 3);
+            assertEquals(COUNT + 1, ENGINE.getClientCount());
+        });
+        final long TIMEOUT = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (PULSES.get() < 3 && System.nanoTime() < TIMEOUT) { Thread.sleep(10); }
+        // The client is not pulsed anymore once it returned false
+        Thread.sleep(100);
+        assertEquals(3, PULSES.get());
+    }
+
+    @Test public void runningTimerIsRegisteredOnce() {
+        final TimerEngine ENGINE = TimerEngine.getInstance();
+        FxToolkit.runAndWait(() -> {
+            final int   COUNT = ENGINE.getClientCount();
+            final Timer TIMER = new Timer();
+            TIMER.setDuration(Duration.seconds(10));
+            TIMER.start();
+            TIMER.stop();
+            TIMER.start();
+            assertEquals(COUNT + 1, ENGINE.getClientCount());
+            TIMER.stop();
+        });
+    }
+
+    @Test public void spinnerAnglesOnlyDependOnThePulseTime() {
+        final long TURN = TimeUnit.SECONDS.toNanos(1);
+        assertEquals(0, TimerEngine.spinnerAngle(0, 0), 1e-9);
+        assertEquals(90, TimerEngine.spinnerAngle(TURN / 4, 0), 1e-9);
+        assertEquals(90, TimerEngine.spinnerAngle(5 * TURN + TURN / 4, 0), 1e-9);
+        assertEquals(270, TimerEngine.spinnerAngle(-TURN / 4, 0), 1e-9);
+        // With 4 frames per second the angle only changes every quarter turn
+        assertEquals(90, TimerEngine.spinnerAngle(TURN / 4 + TURN / 8, 4), 1e-9);
+        assertEquals(180, TimerEngine.spinnerAngle(TURN / 2, 4), 1e-9);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.TimerEvent.Type;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+
+public class TimerEventListenersTest {
+
+    @Test public void listenersAreOnlyIndexedForTheirTypes() {
+        final TimerEventListeners LISTENERS = new TimerEventListeners();
+        final TimerEventListener  SECOND    = e -> {};
+        final TimerEventListener  FINISHED  = e -> {};
+        final TimerEventListener  ALL       = e -> {};
+        LISTENERS.add(SECOND, SECOND, EnumSet.of(Type.SECOND));
+        LISTENERS.add(FINISHED, FINISHED, EnumSet.of(Type.SECOND, Type.FINISHED));
+        LISTENERS.add(ALL, ALL, EnumSet.allOf(Type.class));
+
+        assertArrayEquals(new TimerEventListener[] { SECOND, FINISHED, ALL }, LISTENERS.get(Type.SECOND));
+        assertArrayEquals(new TimerEventListener[] { FINISHED, ALL }, LISTENERS.get(Type.FINISHED));
+        assertArrayEquals(new TimerEventListener[] { ALL }, LISTENERS.get(Type.TICK));
+        assertEquals(3, LISTENERS.size());
+    }
+
+    @Test public void addReplacesAndRemoveUnsubscribes() {
+        final TimerEventListeners LISTENERS = new TimerEventListeners();
+        final TimerEventListener  FIRST     = e -> {};
+        final TimerEventListener  SECOND    = e -> {};
+        LISTENERS.add(FIRST, FIRST, EnumSet.of(Type.SECOND));
+        LISTENERS.add(SECOND, SECOND, EnumSet.of(Type.SECOND, Type.FINISHED));
+        final TimerEventListener[] SNAPSHOT = LISTENERS.get(Type.SECOND);
+
+        // A new subscription of the same listener replaces the old one
+        LISTENERS.add(FIRST, FIRST, EnumSet.of(Type.FINISHED));
+        assertArrayEquals(new TimerEventListener[] { SECOND }, LISTENERS.get(Type.SECOND));
+        assertArrayEquals(new TimerEventListener[] { SECOND, FIRST }, LISTENERS.get(Type.FINISHED));
+        assertEquals(2, LISTENERS.size());
+
+        LISTENERS.remove(SECOND);
+        LISTENERS.remove(e -> {});
+        assertEquals(0, LISTENERS.get(Type.SECOND).length);
+        assertArrayEquals(new TimerEventListener[] { FIRST }, LISTENERS.get(Type.FINISHED));
+        assertEquals(1, LISTENERS.size());
+
+        // Arrays that are dispatched at the moment are not changed
+        assertArrayEquals(new TimerEventListener[] { FIRST, SECOND }, SNAPSHOT);
+
+        LISTENERS.add(FIRST, FIRST, Collections.emptySet());
+        assertEquals(0, LISTENERS.get(Type.FINISHED).length);
+        assertEquals(1, LISTENERS.size());
+    }
+
+    @Test public void changesOnlyCopyTheArraysOfTheirTypes() {
+        final TimerEventListeners LISTENERS = new TimerEventListeners();
+        final TimerEventListener  FINISHED  = e -> {};
+        final TimerEventListener  SECOND    = e -> {};
+        LISTENERS.add(FINISHED, FINISHED, EnumSet.of(Type.FINISHED));
+        final TimerEventListener[] FINISHED_LISTENERS = LISTENERS.get(Type.FINISHED);
+
+        LISTENERS.add(SECOND, SECOND, EnumSet.of(Type.SECOND));
+        assertArrayEquals(new TimerEventListener[] { SECOND }, LISTENERS.get(Type.SECOND));
+        LISTENERS.remove(SECOND);
+        assertEquals(0, LISTENERS.get(Type.SECOND).length);
+        assertSame(FINISHED_LISTENERS, LISTENERS.get(Type.FINISHED));
+    }
+
+    @Test public void wrapperIsRemovedByItsKey() {
+        final TimerEventListeners LISTENERS = new TimerEventListeners();
+        final TimerEventListener  KEY       = e -> {};
+        final TimerEventListener  WRAPPER   = e -> KEY.onTimerEvent(e);
+        LISTENERS.add(KEY, WRAPPER, EnumSet.of(Type.STARTED));
+        assertArrayEquals(new TimerEventListener[] { WRAPPER }, LISTENERS.get(Type.STARTED));
+        LISTENERS.remove(KEY);
+        assertEquals(0, LISTENERS.get(Type.STARTED).length);
+    }
+
+    @Test public void listenerCanRemoveItselfWhileEventIsDispatched() {
+        final TimerModel         MODEL  = new TimerModel();
+        final List<String>       CALLS  = new ArrayList<>();
+        final TimerEventListener ONCE   = new TimerEventListener() {
+            @Override public void onTimerEvent(final TimerEvent EVENT) {
+                CALLS.add("once");
+                MODEL.removeTimerEventListener(this);
+            }
+        };
+        final TimerEventListener ALWAYS = e -> CALLS.add("always");
+        MODEL.addTimerEventListener(EnumSet.of(Type.STARTED, Type.STOPPED), ONCE);
+        MODEL.addTimerEventListener(EnumSet.of(Type.STARTED, Type.STOPPED), ALWAYS);
+        MODEL.start();
+        MODEL.stop();
+        assertEquals(Arrays.asList("once", "always", "always"), CALLS);
+    }
+}
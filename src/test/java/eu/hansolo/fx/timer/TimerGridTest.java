@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class TimerGridTest {
+
+    @BeforeClass public static void startToolkit() { FxToolkit.start(); }
+
+    @Test public void modelsAreUpdatedWithTheirOwnClock() throws Exception {
+        final ManualTimerClock CLOCK = TimerClock.manual();
+        final TimerModel       MODEL = new TimerModel();
+        MODEL.setClock(CLOCK);
+        MODEL.setDurationNanos(TimeUnit.SECONDS.toNanos(1));
+        FxToolkit.runAndWait(() -> {
+            final TimerGrid GRID = new TimerGrid();
+            GRID.getModels().add(MODEL);
+            MODEL.start();
+        });
+        // The pulses must not advance a model with a virtual clock
+        Thread.sleep(100);
+        assertEquals(State.RUNNING, MODEL.getState());
+
+        CLOCK.advance(2, TimeUnit.SECONDS);
+        final long TIMEOUT = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (State.RUNNING == MODEL.getState() && System.nanoTime() < TIMEOUT) { Thread.sleep(10); }
+        assertEquals(State.STOPPED, MODEL.getState());
+    }
+}
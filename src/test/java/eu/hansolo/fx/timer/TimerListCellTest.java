@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import javafx.collections.FXCollections;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+public class TimerListCellTest {
+
+    @BeforeClass public static void startToolkit() { FxToolkit.start(); }
+
+    /**
+     * VirtualFlow measures rows with its accum cell, getCellLength() binds
+     * the row to the accum cell with updateIndex(row) and releases it with
+     * updateIndex(-1). The visible cell of that row must stay bound.
+     */
+    @Test public void accumCellDoesNotUnlinkVisibleCell() throws Exception {
+        final TimerModel      MODEL = new TimerModel();
+        final TimerListCell[] CELLS = new TimerListCell[2];
+        MODEL.setDurationNanos(2_000_000_000L);
+        FxToolkit.runAndWait(() -> {
+            final TimerListView LIST    = new TimerListView(FXCollections.observableArrayList(MODEL));
+            final TimerListCell VISIBLE = new TimerListCell();
+            final TimerListCell ACCUM   = new TimerListCell();
+            VISIBLE.updateListView(LIST);
+            VISIBLE.updateIndex(0);
+
+            ACCUM.updateListView(LIST);
+            ACCUM.updateIndex(0);
+            ACCUM.updateIndex(-1);
+
+            CELLS[0] = VISIBLE;
+            CELLS[1] = ACCUM;
+            MODEL.start();
+        });
+        final Timer VISIBLE_TIMER = CELLS[0].getTimer();
+        assertSame(MODEL, VISIBLE_TIMER.getModel());
+        assertSame(VISIBLE_TIMER, MODEL.getView());
+        assertTrue(CELLS[1].getTimer().getModel() != MODEL);
+
+        final double[] PROGRESS = new double[1];
+        final long     TIMEOUT  = System.nanoTime() + 2_000_000_000L;
+        while (PROGRESS[0] <= 0 && System.nanoTime() < TIMEOUT) {
+            Thread.sleep(20);
+            FxToolkit.runAndWait(() -> PROGRESS[0] = VISIBLE_TIMER.getProgress());
+        }
+        assertTrue("Visible timer is not animated", PROGRESS[0] > 0);
+        FxToolkit.runAndWait(MODEL::stop);
+        assertEquals(Timer.State.STOPPED, VISIBLE_TIMER.getState());
+    }
+
+    /**
+     * Several timers can show the same model, each of them follows it.
+     */
+    @Test public void modelDrivesSeveralViews() {
+        final TimerModel MODEL  = new TimerModel();
+        final Timer[]    TIMERS = new Timer[2];
+        FxToolkit.runAndWait(() -> {
+            TIMERS[0] = new Timer(MODEL);
+            TIMERS[1] = new Timer(MODEL);
+            MODEL.start();
+        });
+        assertEquals(Timer.State.RUNNING, TIMERS[0].getState());
+        FxToolkit.runAndWait(() -> {
+            TIMERS[1].setModel(new TimerModel());
+            MODEL.stop();
+        });
+        assertSame(TIMERS[0], MODEL.getView());
+        assertEquals(Timer.State.STOPPED, TIMERS[1].getState());
+    }
+}
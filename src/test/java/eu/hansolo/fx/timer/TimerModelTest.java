@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import eu.hansolo.fx.timer.TimerEvent.Type;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class TimerModelTest {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+
+    @Test public void ticksFollowChangesOfTheInterval() {
+        final TimerModel   MODEL = new TimerModel();
+        final List<String> TICKS = new ArrayList<>();
+        MODEL.setDurationNanos(TimeUnit.SECONDS.toNanos(10));
+        MODEL.setTickIntervalNanos(100 * MILLIS);
+        MODEL.addTimerEventListener(EnumSet.of(Type.TICK), e -> TICKS.add(e.getTickIndex() + " " + e.getElapsedNanos() / MILLIS));
+        final long START = System.nanoTime();
+        MODEL.start();
+        MODEL.update(START + 250 * MILLIS);
+        MODEL.setTickIntervalNanos(TimeUnit.SECONDS.toNanos(1));
+        MODEL.update(START + 2500 * MILLIS);
+        MODEL.setTickIntervalNanos(0);
+        MODEL.update(START + 5500 * MILLIS);
+        MODEL.stop();
+        assertEquals(Arrays.asList("1 100", "2 200", "1 1000", "2 2000"), TICKS);
+    }
+
+    @Test public void eventsCarryTheirPayload() {
+        final TimerModel       MODEL  = new TimerModel();
+        final List<TimerEvent> EVENTS = new ArrayList<>();
+        MODEL.setDurationNanos(TimeUnit.SECONDS.toNanos(10));
+        MODEL.addTimerEventListener(EnumSet.of(Type.SECOND, Type.FINISHED), e -> EVENTS.add(e.copy()));
+        final long START = System.nanoTime();
+        MODEL.start();
+        MODEL.update(START + 1500 * MILLIS);
+        MODEL.update(START + 12000 * MILLIS);
+        assertEquals(11, EVENTS.size());
+
+        final TimerEvent SECOND = EVENTS.get(0);
+        assertEquals(Type.SECOND, SECOND.getType());
+        assertEquals(START + 1500 * MILLIS, SECOND.getTimestamp());
+        assertEquals(1000 * MILLIS, SECOND.getElapsedNanos());
+        assertEquals(9000 * MILLIS, SECOND.getRemainingNanos());
+        assertEquals(0.1, SECOND.getProgress(), 1e-9);
+        // The model was started a little after START, so the boundary is a little later
+        assertTrue(SECOND.getDriftNanos() > 450 * MILLIS && SECOND.getDriftNanos() <= 500 * MILLIS);
+
+        final TimerEvent FINISHED = EVENTS.get(10);
+        assertEquals(Type.FINISHED, FINISHED.getType());
+        assertEquals(10000 * MILLIS, FINISHED.getElapsedNanos());
+        assertEquals(0, FINISHED.getRemainingNanos());
+        assertEquals(1.0, FINISHED.getProgress(), 1e-9);
+        assertTrue(FINISHED.getDriftNanos() > 1950 * MILLIS && FINISHED.getDriftNanos() <= 2000 * MILLIS);
+    }
+
+    @Test public void manualClockReplaysEventSequence() {
+        final ManualTimerClock CLOCK   = TimerClock.manual();
+        final TimerModel       MODEL   = new TimerModel();
+        final List<Type>       TYPES   = new ArrayList<>();
+        final List<Long>       ELAPSED = new ArrayList<>();
+        MODEL.setClock(CLOCK);
+        MODEL.setDurationNanos(TimeUnit.SECONDS.toNanos(3));
+        MODEL.addTimerEventListener(e -> {
+            TYPES.add(e.getType());
+            ELAPSED.add(e.getElapsedNanos());
+            assertEquals(0, e.getDriftNanos());
+        });
+        MODEL.start();
+        long deadline;
+        while (MODEL.update() && Long.MAX_VALUE != (deadline = MODEL.getNextDeadlineNanos())) { CLOCK.set(deadline); }
+
+        assertEquals(Arrays.asList(Type.STARTED, Type.SECOND, Type.SECOND, Type.SECOND, Type.FINISHED), TYPES);
+        final long SECOND = TimerModel.NANOS_PER_SECOND;
+        assertEquals(Arrays.asList(0L, SECOND, 2 * SECOND, 3 * SECOND, 3 * SECOND), ELAPSED);
+        assertEquals(State.STOPPED, MODEL.getState());
+        assertEquals(3 * SECOND, CLOCK.nanoTime());
+    }
+
+    @Test public void lateUpdateFiresMissedSecondsWithDrift() {
+        final ManualTimerClock CLOCK  = TimerClock.manual();
+        final TimerModel       MODEL  = new TimerModel();
+        final List<Long>       DRIFTS = new ArrayList<>();
+        MODEL.setClock(CLOCK);
+        MODEL.setDurationNanos(TimeUnit.SECONDS.toNanos(3));
+        MODEL.addTimerEventListener(EnumSet.of(Type.SECOND), e -> DRIFTS.add(e.getDriftNanos()));
+        MODEL.start();
+        CLOCK.advance(2500, TimeUnit.MILLISECONDS);
+        assertTrue(MODEL.update());
+        assertEquals(Arrays.asList(TimeUnit.MILLISECONDS.toNanos(1500), TimeUnit.MILLISECONDS.toNanos(500)), DRIFTS);
+    }
+
+    @Test public void waitingModelHasNoDeadline() {
+        final ManualTimerClock CLOCK = TimerClock.manual();
+        final TimerModel       MODEL = new TimerModel();
+        final List<Type>       TYPES = new ArrayList<>();
+        MODEL.setClock(CLOCK);
+        MODEL.addTimerEventListener(e -> TYPES.add(e.getType()));
+        MODEL.waiting();
+        int updates = 0;
+        long deadline;
+        while (MODEL.update() && Long.MAX_VALUE != (deadline = MODEL.getNextDeadlineNanos())) {
+            CLOCK.set(deadline);
+            updates++;
+        }
+        assertEquals(0, updates);
+        assertEquals(Arrays.asList(Type.WAITING), TYPES);
+        assertEquals(State.WAITING, MODEL.getState());
+        MODEL.stop();
+        assertFalse(MODEL.update());
+    }
+
+    /**
+     * The model is used by a class loader that only sees the classes of
+     * the timer and the tests, so it must not touch any JavaFX class.
+     */
+    @Test public void modelRunsWithoutJavaFX() throws Exception {
+        final URL[] LOCATIONS = {
+            TimerModel.class.getProtectionDomain().getCodeSource().getLocation(),
+            TimerModelTest.class.getProtectionDomain().getCodeSource().getLocation()
+        };
+        try (URLClassLoader LOADER = new URLClassLoader(LOCATIONS, null)) {
+            final Callable<?> HEADLESS = (Callable<?>) LOADER.loadClass(Headless.class.getName()).getConstructor().newInstance();
+            assertEquals("STOPPED", HEADLESS.call().toString());
+        }
+    }
+
+
+    // ******************** Inner Classes *************************************
+    public static final class Headless implements Callable<State> {
+        @Override public State call() {
+            final TimerModel MODEL = new TimerModel();
+            MODEL.setDurationNanos(1);
+            MODEL.addTimerEventListener(e -> {});
+            MODEL.start();
+            MODEL.update(Long.MAX_VALUE >> 1);
+            return MODEL.getState();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.TimerEvent.Type;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class TimerProgramTest {
+    private static final long SECOND = TimerModel.NANOS_PER_SECOND;
+
+
+    @Test public void repeatUnrollsTheGroupSinceTheLastRepeat() {
+        final TimerProgram PROGRAM = TimerProgram.builder()
+                                                 .phase(1, TimeUnit.SECONDS)
+                                                 .repeat(2)
+                                                 .phase(2, TimeUnit.SECONDS)
+                                                 .phase(3, TimeUnit.SECONDS)
+                                                 .repeat(2)
+                                                 .phase(4, TimeUnit.SECONDS)
+                                                 .build();
+        final long[] DURATIONS = new long[PROGRAM.getPhaseCount()];
+        for (int i = 0 ; i < DURATIONS.length ; i++) { DURATIONS[i] = PROGRAM.getPhaseDurationNanos(i) / SECOND; }
+        assertEquals("[1, 1, 2, 3, 2, 3, 4]", Arrays.toString(DURATIONS));
+        final int[] DEFINITIONS = new int[PROGRAM.getPhaseCount()];
+        final int[] REPETITIONS = new int[PROGRAM.getPhaseCount()];
+        for (int i = 0 ; i < DEFINITIONS.length ; i++) {
+            DEFINITIONS[i] = PROGRAM.getDefinitionIndex(i);
+            REPETITIONS[i] = PROGRAM.getRepetition(i);
+        }
+        assertEquals("[0, 0, 1, 2, 1, 2, 3]", Arrays.toString(DEFINITIONS));
+        assertEquals("[0, 1, 0, 0, 1, 1, 0]", Arrays.toString(REPETITIONS));
+        assertEquals(16 * SECOND, PROGRAM.getDurationNanos());
+    }
+
+    @Test public void phaseBoundariesBelongToTheNextPhase() {
+        final TimerProgram PROGRAM = TimerProgram.builder()
+                                                 .phase(20, TimeUnit.SECONDS)
+                                                 .phase(10, TimeUnit.SECONDS)
+                                                 .repeat(3)
+                                                 .phase(1, TimeUnit.MINUTES)
+                                                 .build();
+        assertEquals(7, PROGRAM.getPhaseCount());
+        assertEquals(150 * SECOND, PROGRAM.getDurationNanos());
+        assertEquals(0, PROGRAM.getPhaseIndex(0));
+        assertEquals(0, PROGRAM.getPhaseIndex(20 * SECOND - 1));
+        assertEquals(1, PROGRAM.getPhaseIndex(20 * SECOND));
+        assertEquals(2, PROGRAM.getPhaseIndex(30 * SECOND));
+        assertEquals(6, PROGRAM.getPhaseIndex(90 * SECOND));
+        // The end of the program is part of the last phase
+        assertEquals(6, PROGRAM.getPhaseIndex(150 * SECOND));
+        assertEquals(6, PROGRAM.getPhaseIndex(200 * SECOND));
+        assertEquals(80 * SECOND, PROGRAM.getPhaseStartNanos(5));
+        assertEquals(0.5, PROGRAM.getPhaseProgress(25 * SECOND), 1e-9);
+        assertEquals(1.0, PROGRAM.getPhaseProgress(150 * SECOND), 1e-9);
+    }
+
+    @Test(expected = IllegalStateException.class) public void repeatNeedsPhases() {
+        TimerProgram.builder().phase(1, TimeUnit.SECONDS).repeat(2).repeat(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void phasesMustBePositive() {
+        TimerProgram.builder().phase(0);
+    }
+
+    @Test public void modelFiresPhaseChangedAtEveryBoundary() {
+        final TimerProgram PROGRAM = TimerProgram.builder()
+                                                 .phase(1500, TimeUnit.MILLISECONDS)
+                                                 .phase(500, TimeUnit.MILLISECONDS)
+                                                 .repeat(2)
+                                                 .build();
+        final ManualTimerClock CLOCK  = TimerClock.manual();
+        final TimerModel       MODEL  = new TimerModel();
+        final List<String>     EVENTS = new ArrayList<>();
+        MODEL.setClock(CLOCK);
+        MODEL.setProgram(PROGRAM);
+        assertEquals(4 * SECOND, MODEL.getDurationNanos());
+        MODEL.addTimerEventListener(EnumSet.of(Type.PHASE_CHANGED, Type.SECOND, Type.FINISHED), e -> {
+            final String PHASE = Type.PHASE_CHANGED == e.getType() ? " " + e.getPhaseIndex() + "/" + e.getDefinitionIndex() + "/" + e.getRepetition() : "";
+            EVENTS.add(e.getType() + PHASE + " " + e.getElapsedNanos() / TimeUnit.MILLISECONDS.toNanos(1));
+        });
+        MODEL.start();
+        // Jumping to the end at once still fires every boundary in order
+        CLOCK.advance(5, TimeUnit.SECONDS);
+        MODEL.update();
+        // Position, definition index and repetition of the phases
+        assertEquals(Arrays.asList("SECOND 1000", "PHASE_CHANGED 1/1/0 1500", "PHASE_CHANGED 2/0/1 2000", "SECOND 2000",
+                                   "SECOND 3000", "PHASE_CHANGED 3/1/1 3500", "SECOND 4000", "FINISHED 4000"), EVENTS);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class TimerSnapshotFileTest {
+    private static final long SECOND = TimerModel.NANOS_PER_SECOND;
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test public void restoresStoppedAndRunningModels() throws IOException {
+        final Path PATH = folder.getRoot().toPath().resolve("timers.snapshot");
+        try (TimerSnapshotFile FILE = TimerSnapshotFile.open(PATH, 4)) {
+            final TimerModel STOPPED = new TimerModel();
+            final TimerModel RUNNING = new TimerModel();
+            FILE.attach(0, STOPPED);
+            FILE.attach(1, RUNNING);
+            STOPPED.restore(State.STOPPED, 10 * SECOND, 3 * SECOND);
+            RUNNING.setDurationNanos(60 * SECOND);
+            RUNNING.start();
+        }
+        try (TimerSnapshotFile FILE = TimerSnapshotFile.open(PATH, 2)) {
+            assertEquals(4, FILE.getCapacity());
+            assertTrue(FILE.isUsed(0));
+            assertTrue(FILE.isUsed(1));
+            assertFalse(FILE.isUsed(2));
+
+            final TimerModel STOPPED = new TimerModel();
+            assertTrue(FILE.restore(0, STOPPED));
+            assertEquals(State.STOPPED, STOPPED.getState());
+            assertEquals(10 * SECOND, STOPPED.getDurationNanos());
+            assertEquals(3 * SECOND, STOPPED.getElapsedNanos());
+
+            final TimerModel RUNNING = new TimerModel();
+            assertTrue(FILE.restore(1, RUNNING));
+            assertEquals(State.RUNNING, RUNNING.getState());
+            assertEquals(60 * SECOND, RUNNING.getDurationNanos());
+            assertTrue(RUNNING.getElapsedNanos() < 60 * SECOND);
+
+            assertFalse(FILE.restore(2, new TimerModel()));
+        }
+    }
+
+    @Test public void attachWritesRecordAndDurationChanges() throws IOException {
+        final Path PATH = folder.getRoot().toPath().resolve("attached.snapshot");
+        try (TimerSnapshotFile FILE = TimerSnapshotFile.open(PATH, 2)) {
+            final TimerModel MODEL = new TimerModel();
+            MODEL.setDurationNanos(10 * SECOND);
+            FILE.attach(0, MODEL);
+            assertTrue(FILE.isUsed(0));
+
+            MODEL.setDurationNanos(20 * SECOND);
+            final TimerModel RESTORED = new TimerModel();
+            assertTrue(FILE.restore(0, RESTORED));
+            assertEquals(20 * SECOND, RESTORED.getDurationNanos());
+
+            MODEL.setProgram(TimerProgram.builder().phase(30, TimeUnit.SECONDS).build());
+            assertTrue(FILE.restore(0, RESTORED));
+            assertEquals(30 * SECOND, RESTORED.getDurationNanos());
+        }
+    }
+
+    @Test public void tornRecordIsNotRestored() throws IOException {
+        final Path PATH = folder.getRoot().toPath().resolve("torn.snapshot");
+        try (TimerSnapshotFile FILE = TimerSnapshotFile.open(PATH, 2)) {
+            final TimerModel MODEL = new TimerModel();
+            FILE.attach(1, MODEL);
+            MODEL.restore(State.STOPPED, 10 * SECOND, 3 * SECOND);
+        }
+        // A crash in the middle of a write leaves an odd version behind, the records follow a 16 byte header
+        try (FileChannel CHANNEL = FileChannel.open(PATH, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final long       VERSION_POSITION = 16 + TimerSnapshotFile.RECORD_SIZE;
+            final ByteBuffer VERSION          = ByteBuffer.allocate(Long.BYTES);
+            CHANNEL.read(VERSION, VERSION_POSITION);
+            VERSION.putLong(0, VERSION.getLong(0) | 1).clear();
+            CHANNEL.write(VERSION, VERSION_POSITION);
+        }
+        try (TimerSnapshotFile FILE = TimerSnapshotFile.open(PATH, 2)) {
+            final TimerModel MODEL = new TimerModel();
+            assertFalse(FILE.isUsed(1));
+            assertFalse(FILE.restore(1, MODEL));
+            assertEquals(State.STOPPED, MODEL.getState());
+            assertEquals(0, MODEL.getElapsedNanos());
+
+            // The next write repairs the record
+            MODEL.setDurationNanos(5 * SECOND);
+            FILE.write(1, MODEL);
+            assertTrue(FILE.restore(1, new TimerModel()));
+        }
+    }
+
+    @Test public void clearedRecordIsNotRestored() throws IOException {
+        final Path PATH = folder.getRoot().toPath().resolve("cleared.snapshot");
+        try (TimerSnapshotFile FILE = TimerSnapshotFile.open(PATH, 1)) {
+            final TimerModel MODEL = new TimerModel();
+            MODEL.setDurationNanos(TimeUnit.MINUTES.toNanos(1));
+            FILE.write(0, MODEL);
+            assertTrue(FILE.isUsed(0));
+            FILE.clear(0);
+            assertFalse(FILE.isUsed(0));
+            assertFalse(FILE.restore(0, MODEL));
+        }
+    }
+
+    @Test(expected = IOException.class) public void rejectsOtherFiles() throws IOException {
+        final Path PATH = folder.getRoot().toPath().resolve("other.txt");
+        Files.write(PATH, "Not a snapshot of timers".getBytes("UTF-8"));
+        TimerSnapshotFile.open(PATH, 1).close();
+    }
+}
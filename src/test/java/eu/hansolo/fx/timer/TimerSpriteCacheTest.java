@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.TimerSpriteCache.Sprite;
+import javafx.scene.paint.Color;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+public class TimerSpriteCacheTest {
+
+    @BeforeClass public static void startToolkit() { FxToolkit.start(); }
+
+    @After public void clearCache() {
+        FxToolkit.runAndWait(() -> {
+            TimerSpriteCache.setMaxBytes(TimerSpriteCache.DEFAULT_MAX_BYTES);
+            TimerSpriteCache.clear();
+        });
+    }
+
+    @Test public void largestAtlasFitsIntoDefaultBudget() {
+        assertTrue(TimerSpriteCache.getAtlasBytes(TimerSpriteCache.MAX_CELL_SIZE) <= TimerSpriteCache.DEFAULT_MAX_BYTES);
+        FxToolkit.runAndWait(() -> {
+            final Sprite SPRITE = TimerSpriteCache.get(TimerSpriteCache.MAX_CELL_SIZE, 1, Color.RED, Color.TRANSPARENT);
+            assertNotNull(SPRITE);
+            assertTrue(TimerSpriteCache.getBytes() <= TimerSpriteCache.getMaxBytes());
+            assertNull(TimerSpriteCache.get(TimerSpriteCache.MAX_CELL_SIZE + 1, 1, Color.RED, Color.TRANSPARENT));
+        });
+    }
+
+    @Test public void resizingSharesSpritesOfTheSameCellStep() {
+        FxToolkit.runAndWait(() -> {
+            final Sprite SPRITE = TimerSpriteCache.get(100.5, 1, Color.RED, Color.TRANSPARENT);
+            assertSame(SPRITE, TimerSpriteCache.get(101.25, 1, Color.RED, Color.TRANSPARENT));
+            assertSame(SPRITE, TimerSpriteCache.get(52, 2, Color.RED, Color.TRANSPARENT));
+            assertTrue(SPRITE != TimerSpriteCache.get(105, 1, Color.RED, Color.TRANSPARENT));
+        });
+    }
+
+    @Test public void spritesLargerThanTheBudgetAreNotCached() {
+        FxToolkit.runAndWait(() -> {
+            TimerSpriteCache.setMaxBytes(TimerSpriteCache.getAtlasBytes(40));
+            assertNull(TimerSpriteCache.get(60, 1, Color.RED, Color.TRANSPARENT));
+            assertNotNull(TimerSpriteCache.get(40, 1, Color.RED, Color.TRANSPARENT));
+            assertTrue(TimerSpriteCache.getBytes() <= TimerSpriteCache.getMaxBytes());
+        });
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import eu.hansolo.fx.timer.TimerStatistics.ModelReference;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class TimerStatisticsTest {
+
+    @Test public void stateCountsOnlyContainLiveModels() throws Exception {
+        final TimerStatistics STATISTICS = TimerStatistics.getInstance();
+        final long            RUNNING    = STATISTICS.getRunningCount();
+        final long            STOPPED    = STATISTICS.getStoppedCount();
+
+        TimerModel           model     = new TimerModel();
+        final ModelReference REFERENCE = STATISTICS.created(model);
+        STATISTICS.stateChanged(REFERENCE, State.STOPPED, State.RUNNING);
+        assertEquals(RUNNING + 1, STATISTICS.getRunningCount());
+        assertEquals(STOPPED, STATISTICS.getStoppedCount());
+
+        model = null;
+        final long TIMEOUT = System.nanoTime() + 5_000_000_000L;
+        while (STATISTICS.getRunningCount() > RUNNING && System.nanoTime() < TIMEOUT) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(RUNNING, STATISTICS.getRunningCount());
+        assertEquals(STOPPED, STATISTICS.getStoppedCount());
+    }
+}
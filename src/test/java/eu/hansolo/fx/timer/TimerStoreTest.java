@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import eu.hansolo.fx.timer.TimerEvent.Type;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class TimerStoreTest {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+
+    @Test public void finishedIsFiredOnceTheDeadlineHasPassed() {
+        for (boolean offHeap : new boolean[] { false, true }) {
+            final TimerStore   STORE  = new TimerStore(4, offHeap);
+            final List<String> EVENTS = new ArrayList<>();
+            STORE.setOnTimerEvent((handle, type) -> EVENTS.add(handle + " " + type));
+            final int  SHORT = STORE.create(100);
+            final int  LONG  = STORE.create(300);
+            final long START = System.nanoTime();
+            STORE.start(SHORT);
+            STORE.start(LONG);
+            final long END   = System.nanoTime();
+
+            assertEquals(0, STORE.update(START + 50 * MILLIS));
+            assertEquals(State.RUNNING, STORE.getState(SHORT));
+            assertEquals(1, STORE.update(END + 100 * MILLIS));
+            assertEquals(State.STOPPED, STORE.getState(SHORT));
+            assertEquals(State.RUNNING, STORE.getState(LONG));
+            assertEquals(1, STORE.getRunningCount());
+            assertEquals(1, STORE.update(END + 300 * MILLIS));
+            assertEquals(0, STORE.getRunningCount());
+            assertEquals(0, STORE.update(END + 1000 * MILLIS));
+
+            assertEquals(Arrays.asList(SHORT + " " + Type.STARTED, LONG + " " + Type.STARTED,
+                                       SHORT + " " + Type.FINISHED, LONG + " " + Type.FINISHED), EVENTS);
+        }
+    }
+
+    @Test public void stoppedAndReleasedTimersDontFinish() {
+        for (boolean offHeap : new boolean[] { false, true }) {
+            final TimerStore STORE    = new TimerStore(2, offHeap);
+            final int[]      FINISHED = new int[1];
+            STORE.setOnTimerEvent((handle, type) -> { if (Type.FINISHED == type) { FINISHED[0]++; } });
+            final int STOPPED  = STORE.create(10);
+            final int RELEASED = STORE.create(10);
+            STORE.start(STOPPED);
+            STORE.stop(STOPPED);
+            STORE.start(RELEASED);
+            STORE.release(RELEASED);
+            // The released handle is reused while it's still in the running list
+            final int REUSED = STORE.create(10);
+            assertEquals(RELEASED, REUSED);
+
+            assertEquals(0, STORE.update(System.nanoTime() + 1000 * MILLIS));
+            assertEquals(0, FINISHED[0]);
+            assertEquals(State.STOPPED, STORE.getState(REUSED));
+            assertEquals(0, STORE.getRunningCount());
+        }
+    }
+
+    @Test public void listenerCanRestartTimerDuringUpdate() {
+        final TimerStore STORE  = new TimerStore();
+        final int        HANDLE = STORE.create(100);
+        final int[]      RUNS   = new int[1];
+        STORE.setOnTimerEvent((handle, type) -> {
+            if (Type.FINISHED != type || RUNS[0]++ > 0) { return; }
+            STORE.setDurationMillis(handle, 1000);
+            STORE.start(handle);
+        });
+        STORE.start(HANDLE);
+        final long NOW = System.nanoTime() + 150 * MILLIS;
+        // The restarted timer is visited in the same pass but not due yet
+        assertEquals(1, STORE.update(NOW));
+        assertEquals(State.RUNNING, STORE.getState(HANDLE));
+        assertEquals(1, STORE.getRunningCount());
+        assertEquals(0, STORE.update(NOW));
+        assertEquals(1, STORE.update(System.nanoTime() + 1000 * MILLIS));
+        assertEquals(State.STOPPED, STORE.getState(HANDLE));
+    }
+
+    @Test public void deadlineShortenedByListenerIsNotLost() {
+        final TimerStore STORE = new TimerStore();
+        final int        B     = STORE.create(1000);
+        final int        A     = STORE.create(10);
+        // B is visited before A, so its deadline is moved after it has been visited
+        STORE.setOnTimerEvent((handle, type) -> { if (A == handle && Type.FINISHED == type) { STORE.setDurationMillis(B, 30); } });
+        final long START = System.nanoTime();
+        STORE.start(B);
+        STORE.start(A);
+        final long END   = System.nanoTime();
+
+        assertEquals(1, STORE.update(END + 20 * MILLIS));
+        assertEquals(State.RUNNING, STORE.getState(B));
+        assertEquals(1, STORE.update(END + 60 * MILLIS));
+        assertEquals(State.STOPPED, STORE.getState(B));
+        assertEquals(0, STORE.getRunningCount());
+        assertEquals(0, STORE.update(START + 2000 * MILLIS));
+    }
+}
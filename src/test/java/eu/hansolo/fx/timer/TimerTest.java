@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import eu.hansolo.fx.timer.Timer.UpdateMode;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Arc;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.Rectangle;
+import javafx.util.Duration;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+public class TimerTest {
+
+    @BeforeClass public static void startToolkit() { FxToolkit.start(); }
+
+    @Test public void paintsAreAppliedOnceInTheNextLayoutPass() {
+        FxToolkit.runAndWait(() -> {
+            final Timer      TIMER      = new Timer();
+            final Group      ROOT       = layout(TIMER);
+            final Arc        RING       = (Arc) pane(TIMER).getChildren().get(0);
+            final Background BACKGROUND = pane(TIMER).getBackground();
+            TIMER.setColor(Color.RED);
+            TIMER.setColor(Color.GREEN);
+            TIMER.setWaitingColor(Color.GRAY);
+            assertNotEquals(Color.GREEN, RING.getStroke());
+            ROOT.layout();
+            assertEquals(Color.GREEN, RING.getStroke());
+            // The background of the pane didn't change, so it is reused
+            assertSame(BACKGROUND, pane(TIMER).getBackground());
+        });
+    }
+
+    @Test public void pixelModeOnlyMovesTheProgressByWholePixels() throws Exception {
+        final Timer PIXEL      = new Timer();
+        final Timer CONTINUOUS = new Timer();
+        FxToolkit.runAndWait(() -> {
+            layout(PIXEL, CONTINUOUS);
+            PIXEL.setUpdateMode(UpdateMode.PIXEL);
+            for (Timer timer : new Timer[] { PIXEL, CONTINUOUS }) {
+                timer.setDuration(Duration.hours(1));
+                timer.start();
+            }
+        });
+        final long TIMEOUT = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (0 == onFxThread(CONTINUOUS::getProgress) && System.nanoTime() < TIMEOUT) { Thread.sleep(10); }
+        // One pixel of a 19 px timer takes more than a minute of an hour
+        assertTrue(onFxThread(CONTINUOUS::getProgress) > 0);
+        assertEquals(0, onFxThread(PIXEL::getProgress), 0);
+        FxToolkit.runAndWait(() -> {
+            PIXEL.stop();
+            CONTINUOUS.stop();
+        });
+    }
+
+    @Test public void maxUpdateRateLimitsProgressUpdates() throws Exception {
+        final Timer         TIMER   = new Timer();
+        final AtomicInteger UPDATES = new AtomicInteger();
+        FxToolkit.runAndWait(() -> {
+            TIMER.setMaxUpdateRate(0.5);
+            TIMER.setDuration(Duration.seconds(10));
+            TIMER.progressProperty().addListener(o -> UPDATES.incrementAndGet());
+            TIMER.start();
+        });
+        Thread.sleep(500);
+        FxToolkit.runAndWait(TIMER::stop);
+        // The first pulse and the stop, no updates in between
+        assertTrue(UPDATES.get() <= 2);
+    }
+
+    @Test public void nodesAreCreatedWhenTheyAreNeeded() {
+        FxToolkit.runAndWait(() -> {
+            final Timer TIMER = new Timer();
+            assertTrue(TIMER.getChildrenUnmodifiable().isEmpty());
+            TIMER.setDuration(Duration.seconds(10));
+            layout(TIMER);
+            assertEquals(0, count(TIMER, Rectangle.class));
+            assertEquals(1, count(TIMER, Path.class));
+            TIMER.start();
+            assertEquals(1, count(TIMER, Rectangle.class));
+            TIMER.stop();
+        });
+    }
+
+    @Test public void geometryFollowsTheSmallerSide() {
+        FxToolkit.runAndWait(() -> {
+            final Timer TIMER = new Timer();
+            layout(TIMER);
+            final Arc RING = (Arc) pane(TIMER).getChildren().get(0);
+            TIMER.resize(38, 38);
+            TIMER.layout();
+            assertEquals(19, RING.getRadiusX(), 1e-9);
+            // A wider timer keeps its size and is centered
+            TIMER.resize(60, 38);
+            TIMER.layout();
+            assertEquals(19, RING.getRadiusX(), 1e-9);
+            assertEquals(11, pane(TIMER).getLayoutX(), 1e-9);
+            TIMER.resize(60, 60);
+            TIMER.layout();
+            assertEquals(30, RING.getRadiusX(), 1e-9);
+        });
+    }
+
+    @Test public void timerStartedOnAnotherThreadIsUpdated() throws Exception {
+        final Timer  TIMER  = new Timer();
+        TIMER.setDuration(Duration.seconds(10));
+        final Thread WORKER = new Thread(TIMER::start);
+        WORKER.start();
+        WORKER.join();
+        assertEquals(State.RUNNING, TIMER.getState());
+
+        final long TIMEOUT = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (0 == onFxThread(TIMER::getProgress) && System.nanoTime() < TIMEOUT) { Thread.sleep(10); }
+        assertTrue("Timer was not registered with the engine", onFxThread(TIMER::getProgress) > 0);
+        TIMER.stop();
+    }
+
+
+    // Puts the timers into a scene and lays them out with their preferred size
+    private static Group layout(final Timer... TIMERS) {
+        final Group ROOT = new Group(TIMERS);
+        new Scene(ROOT);
+        ROOT.applyCss();
+        ROOT.layout();
+        return ROOT;
+    }
+
+    private static Pane pane(final Timer TIMER) { return (Pane) TIMER.getChildrenUnmodifiable().get(0); }
+
+    private static int count(final Timer TIMER, final Class<? extends Node> TYPE) {
+        int count = 0;
+        for (Node node : pane(TIMER).getChildren()) { if (TYPE.isInstance(node)) { count++; } }
+        return count;
+    }
+
+    private static <T> T onFxThread(final Supplier<T> SUPPLIER) throws Exception {
+        final FutureTask<T> TASK = new FutureTask<>(SUPPLIER::get);
+        Platform.runLater(TASK);
+        return TASK.get();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.hansolo.fx.timer;
+
+import eu.hansolo.fx.timer.Timer.State;
+import eu.hansolo.fx.timer.TimerEvent.Type;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class TimingWheelTest {
+
+    @Test public void onlyDueModelsAreUpdated() {
+        final ManualTimerClock CLOCK   = TimerClock.manual();
+        final TimingWheel      WHEEL   = new TimingWheel(TimingWheel.DEFAULT_TICK_NANOS, CLOCK);
+        final List<Type>       EVENTS  = new ArrayList<>();
+        final TimerModel       SHORT   = model(CLOCK, TimeUnit.MILLISECONDS.toNanos(500), EVENTS);
+        final TimerModel       LONG    = model(CLOCK, TimeUnit.SECONDS.toNanos(3), EVENTS);
+        final TimerModel       STOPPED = model(CLOCK, TimeUnit.MILLISECONDS.toNanos(200), EVENTS);
+        WHEEL.add(SHORT);
+        WHEEL.add(LONG);
+        WHEEL.add(STOPPED);
+        SHORT.start();
+        LONG.start();
+        assertEquals(3, WHEEL.size());
+        assertEquals(2, WHEEL.getScheduledCount());
+
+        assertEquals(0, WHEEL.advance(CLOCK.advance(499, TimeUnit.MILLISECONDS)));
+        assertEquals(1, WHEEL.advance(CLOCK.advance(1, TimeUnit.MILLISECONDS)));
+        assertEquals(State.STOPPED, SHORT.getState());
+        assertEquals(0, WHEEL.advance(CLOCK.advance(499, TimeUnit.MILLISECONDS)));
+        assertEquals(1, WHEEL.advance(CLOCK.advance(1, TimeUnit.MILLISECONDS)));
+        assertEquals(1, WHEEL.getScheduledCount());
+        // A late advance updates the model once, which catches up on all of its events
+        assertEquals(1, WHEEL.advance(CLOCK.advance(2, TimeUnit.SECONDS)));
+        assertEquals(0, WHEEL.getScheduledCount());
+        assertEquals(State.STOPPED, LONG.getState());
+        assertEquals(5, EVENTS.size());
+    }
+
+    /**
+     * With a tick of 1 microsecond the deadlines are placed on the levels 1, 2 and 3
+     * and have to cascade down to level 0 before they fire.
+     */
+    @Test public void deadlinesFireExactlyAcrossLevelCascades() {
+        final ManualTimerClock CLOCK  = TimerClock.manual();
+        final TimingWheel      WHEEL  = new TimingWheel(1_000, CLOCK);
+        final long[]           DUE    = { 100_000L, 5_000_000L, 300_000_000L };
+        final List<TimerEvent> EVENTS = new ArrayList<>();
+        for (long due : DUE) {
+            final TimerModel MODEL = new TimerModel();
+            MODEL.setClock(CLOCK);
+            MODEL.setDurationNanos(due);
+            MODEL.addTimerEventListener(EnumSet.of(Type.FINISHED), e -> EVENTS.add(e.copy()));
+            WHEEL.add(MODEL);
+            MODEL.start();
+        }
+        int fired = 0;
+        for (int i = 0 ; i < DUE.length ; i++) {
+            CLOCK.set(DUE[i] - 1_000);
+            fired += WHEEL.advance();
+            assertEquals(i, EVENTS.size());
+            CLOCK.set(DUE[i]);
+            fired += WHEEL.advance();
+            assertEquals(i + 1, EVENTS.size());
+            assertEquals(DUE[i], EVENTS.get(i).getElapsedNanos());
+            assertEquals(0, EVENTS.get(i).getDriftNanos());
+        }
+        assertEquals(DUE.length, fired);
+        assertEquals(0, WHEEL.getScheduledCount());
+    }
+
+    private static TimerModel model(final TimerClock CLOCK, final long DURATION, final List<Type> EVENTS) {
+        final TimerModel MODEL = new TimerModel();
+        MODEL.setClock(CLOCK);
+        MODEL.setDurationNanos(DURATION);
+        MODEL.addTimerEventListener(EnumSet.of(Type.SECOND, Type.FINISHED), e -> EVENTS.add(e.getType()));
+        return MODEL;
+    }
+}